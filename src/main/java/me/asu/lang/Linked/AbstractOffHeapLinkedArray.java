@@ -0,0 +1,180 @@
+package me.asu.lang.Linked;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import me.asu.util.Exceptions;
+
+/**
+ * 堆外分块数组的公共部分，元素存放在定长的 direct {@link ByteBuffer} 块中，
+ * 或者存放在内存映射文件的连续区域中。
+ * <p>
+ * 映射文件的布局：32 字节的文件头 (magic, 元素字节数, 块宽度, offset, cursor)，
+ * 其后依次是各个块。offset / cursor 每次变化都写入映射的文件头，
+ * 重新打开文件时直接恢复，块在第一次访问时才映射。数据统一使用小端字节序。
+ */
+abstract class AbstractOffHeapLinkedArray implements Closeable {
+
+    static final int HEADER = 32;
+
+    private static final int MAGIC       = 0x414C484F; // "OHLA"
+    private static final int POS_MAGIC   = 0;
+    private static final int POS_ELEMENT = 4;
+    private static final int POS_WIDTH   = 8;
+    private static final int POS_OFFSET  = 12;
+    private static final int POS_CURSOR  = 16;
+
+    final int width;
+    int       offset;
+    int       cursor;
+
+    private final int                   elementSize;
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+    private final RandomAccessFile      raf;
+    private final MappedByteBuffer      header;
+
+    AbstractOffHeapLinkedArray(int elementSize, int width) {
+        if (width <= 0) {
+            throw Exceptions.makeThrow("width must >0!");
+        }
+        this.elementSize = elementSize;
+        this.width = width;
+        this.raf = null;
+        this.header = null;
+    }
+
+    AbstractOffHeapLinkedArray(int elementSize, int width, File file) throws IOException {
+        if (width <= 0) {
+            throw Exceptions.makeThrow("width must >0!");
+        }
+        this.elementSize = elementSize;
+        this.raf = new RandomAccessFile(file, "rw");
+        try {
+            boolean exists = raf.length() >= HEADER;
+            header = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (exists) {
+                if (header.getInt(POS_MAGIC) != MAGIC
+                        || header.getInt(POS_ELEMENT) != elementSize) {
+                    throw new IOException("Not a " + getClass().getSimpleName() + " file: " + file);
+                }
+                // 以文件中记录的块宽度为准
+                this.width = header.getInt(POS_WIDTH);
+                this.offset = header.getInt(POS_OFFSET);
+                this.cursor = header.getInt(POS_CURSOR);
+            } else {
+                this.width = width;
+                header.putInt(POS_MAGIC, MAGIC);
+                header.putInt(POS_ELEMENT, elementSize);
+                header.putInt(POS_WIDTH, width);
+                header.putInt(POS_OFFSET, 0);
+                header.putInt(POS_CURSOR, 0);
+            }
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 返回第 row 块，不存在时分配或映射
+     */
+    final ByteBuffer chunk(int row) {
+        while (chunks.size() <= row) {
+            chunks.add(newChunk(chunks.size()));
+        }
+        return chunks.get(row);
+    }
+
+    private ByteBuffer newChunk(int row) {
+        long bytes = (long) width * elementSize;
+        if (raf == null) {
+            return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try {
+            return raf.getChannel()
+                      .map(FileChannel.MapMode.READ_WRITE, HEADER + row * bytes, bytes)
+                      .order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw Exceptions.wrapThrow(e, "Fail to map chunk %d", row);
+        }
+    }
+
+    /**
+     * 第 index 个元素在其块内的字节位置
+     */
+    final int position(int index) {
+        return (index % width) * elementSize;
+    }
+
+    final void setOffset(int offset) {
+        this.offset = offset;
+        if (header != null) {
+            header.putInt(POS_OFFSET, offset);
+        }
+    }
+
+    final void setCursor(int cursor) {
+        this.cursor = cursor;
+        if (header != null) {
+            header.putInt(POS_CURSOR, cursor);
+        }
+    }
+
+    final void checkBound(int index) {
+        if (index >= size() || index < 0) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    final void reset() {
+        // 映射文件的块还要复用，direct 块则交给 GC 回收
+        if (raf == null) {
+            chunks.clear();
+        }
+        setCursor(0);
+        setOffset(0);
+    }
+
+    public boolean isEmpty() {
+        return 0 == cursor - offset;
+    }
+
+    public int size() {
+        return cursor - offset;
+    }
+
+    /**
+     * @return 是否映射到文件
+     */
+    public boolean isMapped() {
+        return raf != null;
+    }
+
+    /**
+     * 把映射文件中已修改的内容写回磁盘，非映射模式下什么也不做
+     */
+    public void flush() {
+        if (raf == null) {
+            return;
+        }
+        for (ByteBuffer chunk : chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (raf != null) {
+            flush();
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package me.asu.lang.Linked;
+
+import java.lang.invoke.MethodHandles;
+import me.asu.lang.unsafe.FieldUpdaters;
+import me.asu.lang.unsafe.IntegerFieldUpdater;
+import me.asu.lang.unsafe.LongFieldUpdater;
+import me.asu.util.Exceptions;
+import me.asu.util.Strings;
+
+/**
+ * 多生产者、只追加的 {@link LinkedLongArray}。
+ * <p>
+ * 生产者通过对 claimed 的 CAS 领取槽位 (批量追加一次领取一整段)，写入后把写入的个数累加到所在块的计数上，
+ * 生产者之间互不等待。读者只读取已写满的前缀：块的计数等于块中已领取的槽位数时，块中已领取的部分都已写入，
+ * 不加锁，总能看到一个连续、完整的前缀；还没写完的生产者只会让读者暂时看到较短的前缀。
+ * 创建块失败 (如 OOM) 时领取的槽位仍然计入，值为 0，读者的前缀可以越过这一段。
+ * 块在第一次被用到时才创建，只有创建块时才加锁 (每 width 个元素一次)。
+ */
+public class ConcurrentLinkedLongArray {
+
+    private static final LongFieldUpdater<ConcurrentLinkedLongArray> CLAIMED_UPDATER   =
+            FieldUpdaters.newLongFieldUpdater(MethodHandles.lookup(), ConcurrentLinkedLongArray.class,
+                    "claimed");
+    private static final LongFieldUpdater<ConcurrentLinkedLongArray> PUBLISHED_UPDATER =
+            FieldUpdaters.newLongFieldUpdater(MethodHandles.lookup(), ConcurrentLinkedLongArray.class,
+                    "published");
+    private static final IntegerFieldUpdater<Chunk>                  WRITTEN_UPDATER   =
+            FieldUpdaters.newIntegerFieldUpdater(MethodHandles.lookup(), Chunk.class, "written");
+
+    private final int width;
+
+    /**
+     * 块目录，只在持有锁时扩容或写入，扩容时整体替换
+     */
+    private volatile Chunk[] chunks;
+
+    /**
+     * 已领取的槽位数
+     */
+    volatile long claimed;
+
+    /**
+     * 已知写满的前缀长度，只增不减，[0, published) 对读者可见；{@link #size()} 会继续向后推进
+     */
+    volatile long published;
+
+    private static final class Chunk {
+        final long[] data;
+
+        /**
+         * 已写入 (或放弃) 的槽位数
+         */
+        volatile int written;
+
+        Chunk(int width) {
+            data = new long[width];
+        }
+    }
+
+    public ConcurrentLinkedLongArray() {
+        this(1024);
+    }
+
+    public ConcurrentLinkedLongArray(int width) {
+        if (width <= 0) {
+            throw Exceptions.makeThrow("width must >0!");
+        }
+        this.width = width;
+        this.chunks = new Chunk[16];
+    }
+
+    /**
+     * 追加一个元素
+     *
+     * @return 元素的下标
+     */
+    public long push(long e) {
+        long index = claim(1);
+        Chunk chunk;
+        try {
+            chunk = chunk((int) (index / width));
+        } catch (RuntimeException | Error t) {
+            abandon(index, index + 1, t);
+            throw t;
+        }
+        chunk.data[(int) (index % width)] = e;
+        WRITTEN_UPDATER.getAndAdd(chunk, 1);
+        return index;
+    }
+
+    /**
+     * 把 src[off, off + len) 作为连续的一段追加，只领取一次
+     *
+     * @return 第一个元素的下标
+     */
+    public long addAll(long[] src, int off, int len) {
+        if (off < 0 || len < 0 || off + len > src.length) {
+            throw new IndexOutOfBoundsException(
+                    "off: " + off + ", len: " + len + ", length: " + src.length);
+        }
+        long start = claim(len);
+        long end = start + len;
+        long from = start;
+        try {
+            while (from < end) {
+                int i = (int) (from % width);
+                int n = (int) Math.min(width - i, end - from);
+                Chunk chunk = chunk((int) (from / width));
+                System.arraycopy(src, off, chunk.data, i, n);
+                WRITTEN_UPDATER.getAndAdd(chunk, n);
+                off += n;
+                from += n;
+            }
+        } catch (RuntimeException | Error t) {
+            abandon(from, end, t);
+            throw t;
+        }
+        return start;
+    }
+
+    public long addAll(long... src) {
+        return addAll(src, 0, src.length);
+    }
+
+    private long claim(int n) {
+        for (; ; ) {
+            long current = claimed;
+            if (CLAIMED_UPDATER.compareAndSet(this, current, current + n)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * 写入失败时把领取的 [from, end) 当作已写入计数，值保持为 0，读者的前缀可以越过这一段
+     */
+    private void abandon(long from, long end, Throwable cause) {
+        try {
+            while (from < end) {
+                int n = (int) Math.min(width - from % width, end - from);
+                WRITTEN_UPDATER.getAndAdd(chunk((int) (from / width)), n);
+                from += n;
+            }
+        } catch (Throwable t) {
+            cause.addSuppressed(t);
+        }
+    }
+
+    private Chunk chunk(int row) {
+        Chunk[] dir = chunks;
+        Chunk chunk;
+        if (row < dir.length && (chunk = dir[row]) != null) {
+            return chunk;
+        }
+        return newChunk(row);
+    }
+
+    private synchronized Chunk newChunk(int row) {
+        Chunk[] dir = chunks;
+        if (row >= dir.length) {
+            Chunk[] grown = new Chunk[Math.max(row + 1, dir.length << 1)];
+            System.arraycopy(dir, 0, grown, 0, dir.length);
+            dir = grown;
+        }
+        if (dir[row] == null) {
+            dir[row] = new Chunk(width);
+        }
+        chunks = dir;
+        return dir[row];
+    }
+
+    /**
+     * 从 published 开始逐块检查，推进到第一个还有槽位没写完的块为止。
+     * <p>
+     * 先读块的计数再读 claimed：计数里的槽位在读计数之前就已领取，都小于之后读到的 claimed，
+     * 所以计数等于块中小于 claimed 的槽位数时，这些槽位都已写入。
+     */
+    private long advance() {
+        long p = published;
+        Chunk[] dir = chunks;
+        for (; ; ) {
+            int row = (int) (p / width);
+            Chunk chunk;
+            if (row >= dir.length || (chunk = dir[row]) == null) {
+                break;
+            }
+            int written = chunk.written;
+            long base = (long) row * width;
+            long limit = Math.min(base + width, claimed);
+            if (written != limit - base) {
+                break;
+            }
+            p = limit;
+            if (limit < base + width) {
+                break;
+            }
+        }
+        for (; ; ) {
+            long current = published;
+            if (current >= p) {
+                return current;
+            }
+            if (PUBLISHED_UPDATER.compareAndSet(this, current, p)) {
+                return p;
+            }
+        }
+    }
+
+    /**
+     * @return 已发布的元素个数
+     */
+    public long size() {
+        return advance();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public long get(long index) {
+        long size = published;
+        if (index >= size || index < 0) {
+            size = advance();
+            if (index >= size || index < 0) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
+        return chunks[(int) (index / width)].data[(int) (index % width)];
+    }
+
+    /**
+     * @return 当前已发布前缀的快照
+     */
+    public long[] toArray() {
+        long size = advance();
+        if (size > Integer.MAX_VALUE) {
+            throw Exceptions.makeThrow("too large to fit in an array: %d", size);
+        }
+        long[] re = new long[(int) size];
+        Chunk[] dir = chunks;
+        for (int from = 0; from < re.length; ) {
+            int len = Math.min(width, re.length - from);
+            System.arraycopy(dir[from / width].data, 0, re, from, len);
+            from += len;
+        }
+        return re;
+    }
+
+    /**
+     * 按块遍历当前已发布的前缀，不复制
+     *
+     * @param visitor 返回 false 时停止遍历
+     * @return 是否遍历完所有块
+     */
+    public boolean forEachChunk(LinkedLongArray.ChunkVisitor visitor) {
+        long size = advance();
+        Chunk[] dir = chunks;
+        for (long from = 0; from < size; from += width) {
+            if (!visitor.visit(dir[(int) (from / width)].data, 0, (int) Math.min(width, size - from))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return Strings.concat(',', toArray()).toString();
+    }
+}
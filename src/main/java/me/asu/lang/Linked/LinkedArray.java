@@ -4,6 +4,10 @@ import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import me.asu.util.Exceptions;
 
 public class LinkedArray<T> {
@@ -31,26 +35,46 @@ public class LinkedArray<T> {
     private int            width;
     private ArrayList<T[]> cache;
 
-    @SuppressWarnings("unchecked")
     public LinkedArray<T> push(T e) {
-        T[] array;
-        int row = cursor / width;
-        int i = cursor % width;
-        if (cache.size() == 0 || (cursor != offset && i == 0)) {
+        // 只有第一次分配且不知道元素类型时才用到 e 的类型
+        ensureRow(cursor / width, e == null ? Object.class : e.getClass())[cursor % width] = e;
+        cursor++;
+        return this;
+    }
+
+    /**
+     * 把 src[off, off + len) 追加到末尾，每块只调用一次 System.arraycopy
+     */
+    public LinkedArray<T> addAll(T[] src, int off, int len) {
+        if (off < 0 || len < 0 || off + len > src.length) {
+            throw new IndexOutOfBoundsException(
+                    "off: " + off + ", len: " + len + ", length: " + src.length);
+        }
+        Class<?> componentType = src.getClass().getComponentType();
+        while (len > 0) {
+            int i = cursor % width;
+            int n = Math.min(width - i, len);
+            System.arraycopy(src, off, ensureRow(cursor / width, componentType), i, n);
+            cursor += n;
+            off += n;
+            len -= n;
+        }
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] ensureRow(int row, Class<?> type) {
+        while (cache.size() <= row) {
             if (null == eleType) {
-                array = (T[]) Array.newInstance(e.getClass(), width);
+                cache.add((T[]) Array.newInstance(type, width));
             } else {
-                array = (T[]) Array.newInstance(eleType, width);
+                cache.add((T[]) Array.newInstance(eleType, width));
             }
-            cache.add(array);
-        } else {
-            array = cache.get(row);
         }
-        array[i] = e;
-        cursor++;
-        return this;
+        return cache.get(row);
     }
 
+    @SuppressWarnings("unchecked")
     public LinkedArray<T> pushAll(T... es) {
         for (T e : es) {
             push(e);
@@ -148,17 +172,51 @@ public class LinkedArray<T> {
         } else {
             re = (T[]) Array.newInstance(eleType, size());
         }
-        for (int i = 0; i < re.length; i++) {
-            re[i] = this.innerGet(i);
+        int n = 0;
+        for (int from = offset; from < cursor; ) {
+            int i = from % width;
+            int len = Math.min(width - i, cursor - from);
+            System.arraycopy(cache.get(from / width), i, re, n, len);
+            n += len;
+            from += len;
         }
         return re;
     }
 
+    /**
+     * 按块遍历，每块回调一次，不复制
+     *
+     * @param visitor 返回 false 时停止遍历
+     * @return 是否遍历完所有块
+     */
+    public boolean forEachChunk(ChunkVisitor<? super T> visitor) {
+        for (int from = offset; from < cursor; ) {
+            int i = from % width;
+            int len = Math.min(width - i, cursor - from);
+            if (!visitor.visit(cache.get(from / width), i, i + len)) {
+                return false;
+            }
+            from += len;
+        }
+        return true;
+    }
+
+    /**
+     * 按块边界拆分的 Spliterator，并行流的每个子任务都顺序访问整块数组
+     */
+    public Spliterator<T> spliterator() {
+        return new ChunkSpliterator(offset, cursor);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
     public List<T> toList() {
         int len = size();
         ArrayList<T> list = new ArrayList<T>(len);
         for (int i = 0; i < len; i++) {
-            list.add(innerGet(i));
+            list.add(innerGet(i + offset));
         }
         return list;
     }
@@ -229,4 +287,81 @@ public class LinkedArray<T> {
         }
         return -1;
     }
+
+    /**
+     * 块遍历回调
+     */
+    public interface ChunkVisitor<T> {
+
+        /**
+         * @param chunk 块数组，不要修改其中 [from, to) 以外的部分
+         * @param from  起始位置 (包含)
+         * @param to    结束位置 (不包含)
+         * @return 返回 false 时停止遍历
+         */
+        boolean visit(T[] chunk, int from, int to);
+    }
+
+    final class ChunkSpliterator implements Spliterator<T> {
+
+        private       int index;
+        private final int fence;
+
+        ChunkSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int lo = index;
+            int mid = (lo + fence) >>> 1;
+            if (fence - lo > width) {
+                // 跨越多个块时在最靠近中点的块边界处拆分
+                mid -= mid % width;
+                if (mid <= lo) {
+                    mid += width;
+                }
+            }
+            if (mid <= lo || mid >= fence) {
+                return null;
+            }
+            index = mid;
+            return new ChunkSpliterator(lo, mid);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(innerGet(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            int from = index;
+            index = fence;
+            while (from < fence) {
+                int i = from % width;
+                int end = i + Math.min(width - i, fence - from);
+                T[] array = cache.get(from / width);
+                for (int j = i; j < end; j++) {
+                    action.accept(array[j]);
+                }
+                from += end - i;
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
 }
@@ -1,10 +1,20 @@
 package me.asu.lang.Linked;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import me.asu.util.Exceptions;
 import me.asu.util.Strings;
 
-public class LinkedCharArray {
+/**
+ * 分块的字符缓冲区，可以当作 {@link CharSequence} / {@link Appendable} 使用。
+ * <p>
+ * 追加时不会像 {@link StringBuilder} 那样整体扩容复制，适合作为生成大文本的累加器；
+ * {@link #subSequence(int, int)} 返回不复制的视图，{@link #writeTo(Writer)} 与
+ * {@link #writeUtf8(ByteBuffer, int)} 按块直接输出。
+ */
+public class LinkedCharArray implements CharSequence, Appendable {
 
     public LinkedCharArray() {
         this(256);
@@ -35,27 +45,108 @@ public class LinkedCharArray {
     }
 
     public LinkedCharArray push(char e) {
-        char[] array;
-        int row = cursor / width;
-        int i = cursor % width;
-        if (cache.size() == 0 || (cursor != offset && i == 0)) {
-            array = new char[width];
-            cache.add(array);
-        } else {
-            array = cache.get(row);
-        }
-        array[i] = e;
+        ensureRow(cursor / width)[cursor % width] = e;
         cursor++;
         return this;
     }
 
     public LinkedCharArray push(String s) {
-        char[] cs = s.toCharArray();
-        for (char c : cs)
-            push(c);
+        return push(s, 0, s.length());
+    }
+
+    /**
+     * 把 s[start, end) 追加到末尾，每块只调用一次 {@link String#getChars(int, int, char[], int)}
+     */
+    public LinkedCharArray push(String s, int start, int end) {
+        while (start < end) {
+            int i = cursor % width;
+            int n = Math.min(width - i, end - start);
+            s.getChars(start, start + n, ensureRow(cursor / width), i);
+            cursor += n;
+            start += n;
+        }
+        return this;
+    }
+
+    /**
+     * 把 cs[off, off + len) 追加到末尾
+     */
+    public LinkedCharArray push(char[] cs, int off, int len) {
+        while (len > 0) {
+            int i = cursor % width;
+            int n = Math.min(width - i, len);
+            System.arraycopy(cs, off, ensureRow(cursor / width), i, n);
+            cursor += n;
+            off += n;
+            len -= n;
+        }
         return this;
     }
 
+    private char[] ensureRow(int row) {
+        while (cache.size() <= row) {
+            cache.add(new char[width]);
+        }
+        return cache.get(row);
+    }
+
+    @Override
+    public LinkedCharArray append(CharSequence csq) {
+        if (csq == null) {
+            return push("null");
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public LinkedCharArray append(CharSequence csq, int start, int end) {
+        if (csq == null) {
+            return append("null", start, end);
+        }
+        if (start < 0 || start > end || end > csq.length()) {
+            throw new IndexOutOfBoundsException(
+                    "start " + start + ", end " + end + ", length " + csq.length());
+        }
+        if (csq instanceof String) {
+            return push((String) csq, start, end);
+        }
+        if (csq instanceof LinkedCharArray) {
+            LinkedCharArray other = (LinkedCharArray) csq;
+            return other.copyTo(this, other.offset + start, other.offset + end);
+        }
+        if (csq instanceof View) {
+            View view = (View) csq;
+            return view.owner().copyTo(this, view.start + start, view.start + end);
+        }
+        for (int i = start; i < end; i++) {
+            push(csq.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public LinkedCharArray append(char c) {
+        return push(c);
+    }
+
+    /**
+     * 把本缓冲区物理位置 [from, to) 的内容按块追加到 dst
+     */
+    private LinkedCharArray copyTo(LinkedCharArray dst, int from, int to) {
+        if (dst == this) {
+            // 追加到自身时先复制出来，避免边读边写
+            char[] cs = copy(from, to);
+            return dst.push(cs, 0, cs.length);
+        }
+        while (from < to) {
+            int i = from % width;
+            int n = Math.min(width - i, to - from);
+            dst.push(cache.get(from / width), i, n);
+            from += n;
+        }
+        return dst;
+    }
+
     public char popFirst() {
         return innerGet(offset++);
     }
@@ -129,6 +220,135 @@ public class LinkedCharArray {
         return cursor - offset;
     }
 
+    @Override
+    public int length() {
+        return cursor - offset;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return get(index);
+    }
+
+    /**
+     * 返回 [start, end) 的视图，不复制。本缓冲区修改 (pop、clear、set) 之后视图的内容随之改变或失效。
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > size()) {
+            throw new IndexOutOfBoundsException(
+                    "start " + start + ", end " + end + ", length " + size());
+        }
+        return new View(start + offset, end + offset);
+    }
+
+    /**
+     * 按块写入 writer，不复制
+     */
+    public void writeTo(Writer writer) throws IOException {
+        writeRange(writer, offset, cursor);
+    }
+
+    /**
+     * 把 [start, end) 按块写入 writer，不复制
+     */
+    public void writeTo(Writer writer, int start, int end) throws IOException {
+        if (start < 0 || start > end || end > size()) {
+            throw new IndexOutOfBoundsException(
+                    "start " + start + ", end " + end + ", length " + size());
+        }
+        writeRange(writer, start + offset, end + offset);
+    }
+
+    private void writeRange(Writer writer, int from, int to) throws IOException {
+        while (from < to) {
+            int i = from % width;
+            int n = Math.min(width - i, to - from);
+            writer.write(cache.get(from / width), i, n);
+            from += n;
+        }
+    }
+
+    /**
+     * 从第 from 个字符开始按 UTF-8 编码写入 dst，直到写完或者 dst 放不下下一个字符。
+     * 不成对的代理字符写作 '?'，与 {@link String#getBytes(java.nio.charset.Charset)} 相同。
+     *
+     * @param dst  目标缓冲区，堆内或 direct 均可
+     * @param from 起始字符下标
+     * @return 下一个待编码字符的下标，等于 {@link #length()} 时表示已全部写完
+     */
+    public int writeUtf8(ByteBuffer dst, int from) {
+        if (from < 0 || from > size()) {
+            throw new IndexOutOfBoundsException("Index: " + from + ", Size: " + size());
+        }
+        return writeUtf8(dst, from + offset, cursor) - offset;
+    }
+
+    private int writeUtf8(ByteBuffer dst, int from, int to) {
+        while (from < to) {
+            int i = from % width;
+            int end = i + Math.min(width - i, to - from);
+            char[] array = cache.get(from / width);
+            for (; i < end; i++, from++) {
+                char c = array[i];
+                if (c < 0x80) {
+                    if (!dst.hasRemaining()) {
+                        return from;
+                    }
+                    dst.put((byte) c);
+                } else if (c < 0x800) {
+                    if (dst.remaining() < 2) {
+                        return from;
+                    }
+                    dst.put((byte) (0xC0 | (c >> 6)));
+                    dst.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && from + 1 < to
+                        && Character.isLowSurrogate(innerGet(from + 1))) {
+                    if (dst.remaining() < 4) {
+                        return from;
+                    }
+                    int cp = Character.toCodePoint(c, innerGet(from + 1));
+                    dst.put((byte) (0xF0 | (cp >> 18)));
+                    dst.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    dst.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    dst.put((byte) (0x80 | (cp & 0x3F)));
+                    // 低位代理可能在下一块，交给外层循环重新定位
+                    from += 2;
+                    break;
+                } else if (Character.isSurrogate(c)) {
+                    if (!dst.hasRemaining()) {
+                        return from;
+                    }
+                    dst.put((byte) '?');
+                } else {
+                    if (dst.remaining() < 3) {
+                        return from;
+                    }
+                    dst.put((byte) (0xE0 | (c >> 12)));
+                    dst.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    dst.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+        return from;
+    }
+
+    /**
+     * 复制物理位置 [from, to) 的内容
+     */
+    private char[] copy(int from, int to) {
+        char[] re = new char[to - from];
+        int n = 0;
+        while (from < to) {
+            int i = from % width;
+            int len = Math.min(width - i, to - from);
+            System.arraycopy(cache.get(from / width), i, re, n, len);
+            n += len;
+            from += len;
+        }
+        return re;
+    }
+
     public boolean startsWith(String s) {
         if (null == s)
             return false;
@@ -174,12 +394,10 @@ public class LinkedCharArray {
     }
 
     public char[] toArray() {
-        char[] re = new char[size()];
-        for (int i = 0; i < re.length; i++)
-            re[i] = this.get(i);
-        return re;
+        return copy(offset, cursor);
     }
 
+    @Override
     public String toString() {
         return new String(toArray());
     }
@@ -193,4 +411,49 @@ public class LinkedCharArray {
         clear();
         return re;
     }
+
+    /**
+     * {@link #subSequence(int, int)} 返回的视图，start / end 为物理位置
+     */
+    final class View implements CharSequence {
+
+        private final int start;
+        private final int end;
+
+        View(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        LinkedCharArray owner() {
+            return LinkedCharArray.this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (end - start));
+            }
+            return innerGet(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || from > to || to > end - start) {
+                throw new IndexOutOfBoundsException(
+                        "start " + from + ", end " + to + ", length " + (end - start));
+            }
+            return new View(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(copy(start, end));
+        }
+    }
 }
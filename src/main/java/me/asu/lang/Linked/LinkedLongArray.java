@@ -1,6 +1,11 @@
 package me.asu.lang.Linked;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 import me.asu.util.Exceptions;
 import me.asu.util.Strings;
 
@@ -24,20 +29,41 @@ public class LinkedLongArray {
     private ArrayList<long[]> cache;
 
     public LinkedLongArray push(long e) {
-        long[] array;
-        int row = cursor / width;
-        int i = cursor % width;
-        if (cache.size() == 0 || (cursor != offset && i == 0)) {
-            array = new long[width];
-            cache.add(array);
-        } else {
-            array = cache.get(row);
-        }
-        array[i] = e;
+        ensureRow(cursor / width)[cursor % width] = e;
         cursor++;
         return this;
     }
 
+    /**
+     * 把 src[off, off + len) 追加到末尾，每块只调用一次 System.arraycopy
+     */
+    public LinkedLongArray addAll(long[] src, int off, int len) {
+        if (off < 0 || len < 0 || off + len > src.length) {
+            throw new IndexOutOfBoundsException(
+                    "off: " + off + ", len: " + len + ", length: " + src.length);
+        }
+        while (len > 0) {
+            int i = cursor % width;
+            int n = Math.min(width - i, len);
+            System.arraycopy(src, off, ensureRow(cursor / width), i, n);
+            cursor += n;
+            off += n;
+            len -= n;
+        }
+        return this;
+    }
+
+    public LinkedLongArray addAll(long... src) {
+        return addAll(src, 0, src.length);
+    }
+
+    private long[] ensureRow(int row) {
+        while (cache.size() <= row) {
+            cache.add(new long[width]);
+        }
+        return cache.get(row);
+    }
+
     public long popFirst() {
         return innerGet(offset++);
     }
@@ -108,15 +134,166 @@ public class LinkedLongArray {
 
     public long[] toArray() {
         long[] re = new long[size()];
-        for (int i = 0; i < re.length; i++) {
-            re[i] = this.get(i);
+        int n = 0;
+        for (int from = offset; from < cursor; ) {
+            int i = from % width;
+            int len = Math.min(width - i, cursor - from);
+            System.arraycopy(cache.get(from / width), i, re, n, len);
+            n += len;
+            from += len;
         }
         return re;
     }
 
+    /**
+     * 按块遍历，每块回调一次，不复制
+     *
+     * @param visitor 返回 false 时停止遍历
+     * @return 是否遍历完所有块
+     */
+    public boolean forEachChunk(ChunkVisitor visitor) {
+        for (int from = offset; from < cursor; ) {
+            int i = from % width;
+            int len = Math.min(width - i, cursor - from);
+            if (!visitor.visit(cache.get(from / width), i, i + len)) {
+                return false;
+            }
+            from += len;
+        }
+        return true;
+    }
+
+    /**
+     * 并行排序。先按块复制到一个临时数组，{@link Arrays#parallelSort(long[])} 之后再按块写回，
+     * 需要与当前内容等大的临时空间。
+     */
+    public LinkedLongArray sort() {
+        long[] all = toArray();
+        Arrays.parallelSort(all);
+        int n = 0;
+        for (int from = offset; from < cursor; ) {
+            int i = from % width;
+            int len = Math.min(width - i, cursor - from);
+            System.arraycopy(all, n, cache.get(from / width), i, len);
+            n += len;
+            from += len;
+        }
+        return this;
+    }
+
+    /**
+     * 在已排序的内容中二分查找
+     *
+     * @return 与 {@link Arrays#binarySearch(long[], long)} 相同：找到时返回下标，
+     * 否则返回 -(插入点) - 1
+     */
+    public int binarySearch(long key) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long v = innerGet(mid + offset);
+            if (v < key) {
+                low = mid + 1;
+            } else if (v > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * 按块边界拆分的 Spliterator，并行流的每个子任务都顺序访问整块数组
+     */
+    public Spliterator.OfLong spliterator() {
+        return new ChunkSpliterator(offset, cursor);
+    }
+
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
     @Override
     public String toString() {
         return Strings.concat(',', toArray()).toString();
     }
 
+    /**
+     * 块遍历回调
+     */
+    public interface ChunkVisitor {
+
+        /**
+         * @param chunk 块数组，不要修改其中 [from, to) 以外的部分
+         * @param from  起始位置 (包含)
+         * @param to    结束位置 (不包含)
+         * @return 返回 false 时停止遍历
+         */
+        boolean visit(long[] chunk, int from, int to);
+    }
+
+    final class ChunkSpliterator implements Spliterator.OfLong {
+
+        private       int index;
+        private final int fence;
+
+        ChunkSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int lo = index;
+            int mid = (lo + fence) >>> 1;
+            if (fence - lo > width) {
+                // 跨越多个块时在最靠近中点的块边界处拆分
+                mid -= mid % width;
+                if (mid <= lo) {
+                    mid += width;
+                }
+            }
+            if (mid <= lo || mid >= fence) {
+                return null;
+            }
+            index = mid;
+            return new ChunkSpliterator(lo, mid);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(innerGet(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            int from = index;
+            index = fence;
+            while (from < fence) {
+                int i = from % width;
+                int end = i + Math.min(width - i, fence - from);
+                long[] array = cache.get(from / width);
+                for (int j = i; j < end; j++) {
+                    action.accept(array[j]);
+                }
+                from += end - i;
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
 }
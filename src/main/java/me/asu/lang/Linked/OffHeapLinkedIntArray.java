@@ -0,0 +1,135 @@
+package me.asu.lang.Linked;
+
+import java.io.File;
+import java.io.IOException;
+import me.asu.util.Strings;
+
+/**
+ * 堆外版本的 {@link LinkedIntArray}，接口相同。
+ * <p>
+ * 元素存放在 direct 内存块中，不占用堆，也不增加 GC 扫描的负担；
+ * 也可以映射到文件 ({@link #OffHeapLinkedIntArray(File)})，重启后重新打开即可恢复内容。
+ * 非线程安全。
+ */
+public class OffHeapLinkedIntArray extends AbstractOffHeapLinkedArray {
+
+    /**
+     * 默认每块的元素个数
+     */
+    public static final int DEFAULT_WIDTH = 64 * 1024;
+
+    public OffHeapLinkedIntArray() {
+        this(DEFAULT_WIDTH);
+    }
+
+    public OffHeapLinkedIntArray(int width) {
+        super(4, width);
+    }
+
+    /**
+     * 映射到文件，文件已存在时恢复其中的内容
+     *
+     * @param file 数据文件
+     * @throws IOException 无法打开或映射文件，或者文件格式不对
+     */
+    public OffHeapLinkedIntArray(File file) throws IOException {
+        this(file, DEFAULT_WIDTH);
+    }
+
+    /**
+     * 映射到文件，文件已存在时恢复其中的内容，并以文件中记录的块宽度为准
+     *
+     * @param file  数据文件
+     * @param width 新文件每块的元素个数
+     * @throws IOException 无法打开或映射文件，或者文件格式不对
+     */
+    public OffHeapLinkedIntArray(File file, int width) throws IOException {
+        super(4, width, file);
+    }
+
+    public OffHeapLinkedIntArray push(int e) {
+        chunk(cursor / width).putInt(position(cursor), e);
+        setCursor(cursor + 1);
+        return this;
+    }
+
+    public int popFirst() {
+        // 映射文件中的游标会持久化，先检查再移动
+        checkBound(0);
+        int re = innerGet(offset);
+        setOffset(offset + 1);
+        return re;
+    }
+
+    public int popLast() {
+        checkBound(0);
+        setCursor(cursor - 1);
+        return innerGet(cursor);
+    }
+
+    /**
+     * 删除末尾的 num 个元素
+     *
+     * @throws IndexOutOfBoundsException num &lt; 0 或大于元素个数
+     */
+    public OffHeapLinkedIntArray popLast(int num) {
+        if (num < 0 || num > size()) {
+            throw new IndexOutOfBoundsException("num: " + num + ", Size: " + size());
+        }
+        setCursor(cursor - num);
+        return this;
+    }
+
+    public int first() {
+        if (size() == 0) {
+            return 0;
+        }
+        return innerGet(offset);
+    }
+
+    public int last() {
+        if (size() == 0) {
+            return 0;
+        }
+        return innerGet(cursor - 1);
+    }
+
+    public OffHeapLinkedIntArray set(int index, int e) {
+        checkBound(index);
+        index += offset;
+        chunk(index / width).putInt(position(index), e);
+        return this;
+    }
+
+    public OffHeapLinkedIntArray setLast(int e) {
+        set(this.size() - 1, e);
+        return this;
+    }
+
+    public OffHeapLinkedIntArray clear() {
+        reset();
+        return this;
+    }
+
+    private int innerGet(int index) {
+        return chunk(index / width).getInt(position(index));
+    }
+
+    public int get(int index) {
+        checkBound(index);
+        return innerGet(index + offset);
+    }
+
+    public int[] toArray() {
+        int[] re = new int[size()];
+        for (int i = 0; i < re.length; i++) {
+            re[i] = innerGet(i + offset);
+        }
+        return re;
+    }
+
+    @Override
+    public String toString() {
+        return Strings.concat(',', toArray()).toString();
+    }
+}
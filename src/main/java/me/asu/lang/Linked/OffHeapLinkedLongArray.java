@@ -0,0 +1,135 @@
+package me.asu.lang.Linked;
+
+import java.io.File;
+import java.io.IOException;
+import me.asu.util.Strings;
+
+/**
+ * 堆外版本的 {@link LinkedLongArray}，接口相同。
+ * <p>
+ * 元素存放在 direct 内存块中，不占用堆，也不增加 GC 扫描的负担；
+ * 也可以映射到文件 ({@link #OffHeapLinkedLongArray(File)})，重启后重新打开即可恢复内容。
+ * 非线程安全。
+ */
+public class OffHeapLinkedLongArray extends AbstractOffHeapLinkedArray {
+
+    /**
+     * 默认每块的元素个数
+     */
+    public static final int DEFAULT_WIDTH = 64 * 1024;
+
+    public OffHeapLinkedLongArray() {
+        this(DEFAULT_WIDTH);
+    }
+
+    public OffHeapLinkedLongArray(int width) {
+        super(8, width);
+    }
+
+    /**
+     * 映射到文件，文件已存在时恢复其中的内容
+     *
+     * @param file 数据文件
+     * @throws IOException 无法打开或映射文件，或者文件格式不对
+     */
+    public OffHeapLinkedLongArray(File file) throws IOException {
+        this(file, DEFAULT_WIDTH);
+    }
+
+    /**
+     * 映射到文件，文件已存在时恢复其中的内容，并以文件中记录的块宽度为准
+     *
+     * @param file  数据文件
+     * @param width 新文件每块的元素个数
+     * @throws IOException 无法打开或映射文件，或者文件格式不对
+     */
+    public OffHeapLinkedLongArray(File file, int width) throws IOException {
+        super(8, width, file);
+    }
+
+    public OffHeapLinkedLongArray push(long e) {
+        chunk(cursor / width).putLong(position(cursor), e);
+        setCursor(cursor + 1);
+        return this;
+    }
+
+    public long popFirst() {
+        // 映射文件中的游标会持久化，先检查再移动
+        checkBound(0);
+        long re = innerGet(offset);
+        setOffset(offset + 1);
+        return re;
+    }
+
+    public long popLast() {
+        checkBound(0);
+        setCursor(cursor - 1);
+        return innerGet(cursor);
+    }
+
+    /**
+     * 删除末尾的 num 个元素
+     *
+     * @throws IndexOutOfBoundsException num &lt; 0 或大于元素个数
+     */
+    public OffHeapLinkedLongArray popLast(long num) {
+        if (num < 0 || num > size()) {
+            throw new IndexOutOfBoundsException("num: " + num + ", Size: " + size());
+        }
+        setCursor((int) (cursor - num));
+        return this;
+    }
+
+    public long first() {
+        if (size() == 0) {
+            return -1;
+        }
+        return innerGet(offset);
+    }
+
+    public long last() {
+        if (size() == 0) {
+            return -1;
+        }
+        return innerGet(cursor - 1);
+    }
+
+    public OffHeapLinkedLongArray set(int index, long e) {
+        checkBound(index);
+        index += offset;
+        chunk(index / width).putLong(position(index), e);
+        return this;
+    }
+
+    public OffHeapLinkedLongArray setLast(long e) {
+        set(this.size() - 1, e);
+        return this;
+    }
+
+    public OffHeapLinkedLongArray clear() {
+        reset();
+        return this;
+    }
+
+    private long innerGet(int index) {
+        return chunk(index / width).getLong(position(index));
+    }
+
+    public long get(int index) {
+        checkBound(index);
+        return innerGet(index + offset);
+    }
+
+    public long[] toArray() {
+        long[] re = new long[size()];
+        for (int i = 0; i < re.length; i++) {
+            re[i] = innerGet(i + offset);
+        }
+        return re;
+    }
+
+    @Override
+    public String toString() {
+        return Strings.concat(',', toArray()).toString();
+    }
+}
@@ -0,0 +1,55 @@
+package me.asu.lang.map;
+
+import java.util.Map;
+import me.asu.util.NameCache;
+
+/**
+ * 驼峰Key风格的小Map<br>
+ * 对KEY转换为驼峰，get("int_value")和get("intValue")获得的值相同，put进入的值也会被覆盖<br>
+ * 元素较少时不使用哈希表，见 {@link CustomKeyFlatMap}
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class CamelCaseFlatMap<K, V> extends CustomKeyFlatMap<K, V> {
+	private static final long serialVersionUID = -4417596712733126407L;
+
+	/**
+	 * 构造
+	 */
+	public CamelCaseFlatMap() {
+		super();
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param threshold 超过多少个元素时转为哈希表
+	 */
+	public CamelCaseFlatMap(int threshold) {
+		super(threshold);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param m Map
+	 */
+	public CamelCaseFlatMap(Map<? extends K, ? extends V> m) {
+		super(m);
+	}
+
+	/**
+	 * 将Key转为驼峰风格，如果key为字符串的话，转换结果会被缓存
+	 *
+	 * @param key KEY
+	 * @return 驼峰Key
+	 */
+	@Override
+	protected Object customKey(Object key) {
+		if (null != key && key instanceof CharSequence) {
+			key = NameCache.camelCase(key.toString());
+		}
+		return key;
+	}
+}
@@ -1,7 +1,7 @@
 package me.asu.lang.map;
 
 import java.util.Map;
-import me.asu.util.Strings;
+import me.asu.util.NameCache;
 
 /**
  * 驼峰Key风格的Map<br>
@@ -52,7 +52,7 @@ public class CamelCaseMap<K, V> extends CustomKeyMap<K, V> {
 	}
 	
 	/**
-	 * 将Key转为驼峰风格，如果key为字符串的话
+	 * 将Key转为驼峰风格，如果key为字符串的话，转换结果会被缓存
 	 * 
 	 * @param key KEY
 	 * @return 驼峰Key
@@ -60,7 +60,7 @@ public class CamelCaseMap<K, V> extends CustomKeyMap<K, V> {
 	@Override
 	protected Object customKey(Object key) {
 		if (null != key && key instanceof CharSequence) {
-			key = Strings.toCamelCase(key.toString());
+			key = NameCache.camelCase(key.toString());
 		}
 		return key;
 	}
@@ -0,0 +1,457 @@
+package me.asu.lang.map;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import me.asu.util.NameCache;
+
+/**
+ * 驼峰Key风格的行模板。
+ * <p>
+ * 把结果集的每一行都放进 {@link CamelCaseMap} 时，每一行都要把同样的列名再转换、再哈希一次。
+ * 行模板根据第一行 (或列名) 一次算好 列下标 -> 槽位 的数组，之后每一行只是一个 Object[]，
+ * 用 {@link Row#set(int, Object)} 按列下标填值，不转换键、不哈希、不创建 Entry。
+ * 行本身是一个 Map，键为驼峰风格，按列的顺序遍历，get("user_name") 与 get("userName") 等价，
+ * 与 {@link CamelCaseLinkedMap} 的行为一致。
+ * <pre>
+ * CamelCaseRowTemplate template = CamelCaseRowTemplate.of(columnNames);
+ * while (rs.next()) {
+ *     CamelCaseRowTemplate.Row row = template.newRow();
+ *     for (int i = 0; i &lt; columnNames.length; i++) {
+ *         row.set(i, rs.getObject(i + 1));
+ *     }
+ *     rows.add(row);
+ * }
+ * </pre>
+ * 模板不可变，可以在线程间共享；行非线程安全。
+ */
+public class CamelCaseRowTemplate implements Serializable {
+
+    private static final long serialVersionUID = -3243166227734381915L;
+
+    /**
+     * 原始列名
+     */
+    private final String[] columns;
+
+    /**
+     * 各槽位的驼峰键，转换后重复的列共用一个槽位
+     */
+    private final String[] keys;
+
+    /**
+     * 列下标 -> 槽位
+     */
+    private final int[] columnSlots;
+
+    /**
+     * 驼峰键 -> 槽位
+     */
+    private final HashMap<String, Integer> slots;
+
+    private CamelCaseRowTemplate(String[] columns) {
+        this.columns = columns;
+        this.columnSlots = new int[columns.length];
+        this.slots = new HashMap<String, Integer>((int) (columns.length / 0.75f) + 1);
+        String[] keys = new String[columns.length];
+        int n = 0;
+        for (int i = 0; i < columns.length; i++) {
+            String key = NameCache.camelCase(columns[i]);
+            Integer slot = slots.get(key);
+            if (slot == null) {
+                slot = n;
+                keys[n++] = key;
+                slots.put(key, slot);
+            }
+            columnSlots[i] = slot;
+        }
+        this.keys = n == keys.length ? keys : Arrays.copyOf(keys, n);
+    }
+
+    /**
+     * @param columns 列名，按结果集中的顺序
+     * @return 行模板
+     */
+    public static CamelCaseRowTemplate of(String... columns) {
+        String[] copy = columns.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] == null) {
+                throw new IllegalArgumentException("column " + i + " is null!");
+            }
+        }
+        return new CamelCaseRowTemplate(copy);
+    }
+
+    /**
+     * 以一行数据的键作为列名，列的顺序即 Map 的遍历顺序
+     *
+     * @param row 一行数据
+     * @return 行模板
+     */
+    public static CamelCaseRowTemplate of(Map<?, ?> row) {
+        String[] columns = new String[row.size()];
+        int i = 0;
+        for (Object key : row.keySet()) {
+            columns[i++] = String.valueOf(key);
+        }
+        return new CamelCaseRowTemplate(columns);
+    }
+
+    /**
+     * 列名是否与模板完全相同 (个数、顺序都相同)，相同时可以直接用此模板创建行
+     *
+     * @param columns 列名
+     * @return 是否相同
+     */
+    public boolean matches(String... columns) {
+        if (columns.length != this.columns.length) {
+            return false;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            String a = columns[i];
+            if (a != this.columns[i] && !this.columns[i].equals(a)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 列数
+     */
+    public int columnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param column 列下标
+     * @return 原始列名
+     */
+    public String column(int column) {
+        return columns[column];
+    }
+
+    /**
+     * @return 槽位数，即行中的键的个数
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @param slot 槽位
+     * @return 该槽位的驼峰键
+     */
+    public String key(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * @param key 键，驼峰或下划线风格均可
+     * @return 槽位，不存在时返回 -1
+     */
+    public int slotOf(Object key) {
+        if (!(key instanceof CharSequence)) {
+            return -1;
+        }
+        Integer slot = slots.get(NameCache.camelCase(key.toString()));
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @param column 列下标
+     * @return 该列对应的槽位
+     */
+    public int slotOfColumn(int column) {
+        return columnSlots[column];
+    }
+
+    /**
+     * @return 新的一行，所有键都存在，值为 null
+     */
+    public Row newRow() {
+        return new Row(this);
+    }
+
+    /**
+     * @param values 按列顺序排列的值
+     * @return 新的一行
+     */
+    public Row newRow(Object... values) {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException(
+                    "expected " + columns.length + " values, got " + values.length);
+        }
+        Row row = new Row(this);
+        for (int i = 0; i < values.length; i++) {
+            row.values[columnSlots[i]] = values[i];
+        }
+        return row;
+    }
+
+    /**
+     * 按模板存放的一行，值存放在数组中。
+     * 模板以外的键放在一个按需创建的 {@link CamelCaseLinkedMap} 中，遍历时排在模板的键之后。
+     */
+    public static class Row extends AbstractMap<String, Object> implements Serializable {
+
+        private static final long serialVersionUID = 6046371281566981374L;
+
+        private final CamelCaseRowTemplate template;
+        private final Object[]             values;
+
+        /**
+         * 已删除的槽位，第一次删除时才创建
+         */
+        private boolean[] removed;
+        private int       removedCount;
+
+        private CamelCaseLinkedMap<String, Object> extras;
+
+        private transient EntrySet entrySet;
+
+        Row(CamelCaseRowTemplate template) {
+            this.template = template;
+            this.values = new Object[template.keys.length];
+        }
+
+        public CamelCaseRowTemplate getTemplate() {
+            return template;
+        }
+
+        /**
+         * 按列下标设置值，不转换、不哈希键
+         *
+         * @param column 列下标
+         * @param value  值
+         */
+        public void set(int column, Object value) {
+            int slot = template.columnSlots[column];
+            values[slot] = value;
+            if (removed != null && removed[slot]) {
+                removed[slot] = false;
+                removedCount--;
+            }
+        }
+
+        /**
+         * 按列下标取值
+         *
+         * @param column 列下标
+         * @return 值
+         */
+        public Object get(int column) {
+            int slot = template.columnSlots[column];
+            return isPresent(slot) ? values[slot] : null;
+        }
+
+        private boolean isPresent(int slot) {
+            return removed == null || !removed[slot];
+        }
+
+        @Override
+        public Object get(Object key) {
+            int slot = template.slotOf(key);
+            if (slot >= 0) {
+                return isPresent(slot) ? values[slot] : null;
+            }
+            return extras == null ? null : extras.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            int slot = template.slotOf(key);
+            if (slot >= 0) {
+                return isPresent(slot);
+            }
+            return extras != null && extras.containsKey(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            int slot = template.slotOf(key);
+            if (slot < 0) {
+                if (extras == null) {
+                    extras = new CamelCaseLinkedMap<String, Object>();
+                }
+                return extras.put(key, value);
+            }
+            Object old = isPresent(slot) ? values[slot] : null;
+            values[slot] = value;
+            if (removed != null && removed[slot]) {
+                removed[slot] = false;
+                removedCount--;
+            }
+            return old;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            int slot = template.slotOf(key);
+            if (slot < 0) {
+                return extras == null ? null : extras.remove(key);
+            }
+            return removeSlot(slot);
+        }
+
+        private Object removeSlot(int slot) {
+            if (!isPresent(slot)) {
+                return null;
+            }
+            if (removed == null) {
+                removed = new boolean[values.length];
+            }
+            Object old = values[slot];
+            values[slot] = null;
+            removed[slot] = true;
+            removedCount++;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return values.length - removedCount + (extras == null ? 0 : extras.size());
+        }
+
+        @Override
+        public void clear() {
+            for (int i = 0; i < values.length; i++) {
+                removeSlot(i);
+            }
+            extras = null;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            EntrySet es = entrySet;
+            return es != null ? es : (entrySet = new EntrySet());
+        }
+
+        private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return Row.this.size();
+            }
+
+            @Override
+            public void clear() {
+                Row.this.clear();
+            }
+        }
+
+        private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+            private int slot = -1;
+            private int next;
+            private Iterator<Entry<String, Object>> extraIterator;
+            private boolean inExtras;
+
+            EntryIterator() {
+                next = advance(0);
+            }
+
+            private int advance(int from) {
+                while (from < values.length && !isPresent(from)) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (next < values.length) {
+                    return true;
+                }
+                if (extraIterator == null && extras != null) {
+                    extraIterator = extras.entrySet().iterator();
+                }
+                return extraIterator != null && extraIterator.hasNext();
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (next < values.length) {
+                    slot = next;
+                    next = advance(next + 1);
+                    return new SlotEntry(slot);
+                }
+                inExtras = true;
+                return extraIterator.next();
+            }
+
+            @Override
+            public void remove() {
+                if (inExtras) {
+                    extraIterator.remove();
+                } else if (slot < 0 || !isPresent(slot)) {
+                    throw new IllegalStateException();
+                } else {
+                    removeSlot(slot);
+                }
+            }
+        }
+
+        private final class SlotEntry implements Entry<String, Object> {
+
+            private final int slot;
+
+            SlotEntry(int slot) {
+                this.slot = slot;
+            }
+
+            @Override
+            public String getKey() {
+                return template.keys[slot];
+            }
+
+            @Override
+            public Object getValue() {
+                return values[slot];
+            }
+
+            @Override
+            public Object setValue(Object value) {
+                Object old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> e = (Entry<?, ?>) o;
+                Object v = getValue();
+                return getKey().equals(e.getKey())
+                        && (v == null ? e.getValue() == null : v.equals(e.getValue()));
+            }
+
+            @Override
+            public int hashCode() {
+                Object v = getValue();
+                return getKey().hashCode() ^ (v == null ? 0 : v.hashCode());
+            }
+
+            @Override
+            public String toString() {
+                return getKey() + "=" + getValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package me.asu.lang.map;
+
+import java.util.Map;
+
+/**
+ * 忽略大小写的小Map<br>
+ * 对KEY忽略大小写，get("Value")和get("value")获得的值相同，put进入的值也会被覆盖<br>
+ * 元素较少时不使用哈希表，见 {@link CustomKeyFlatMap}
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class CaseInsensitiveFlatMap<K, V> extends CustomKeyFlatMap<K, V> {
+	private static final long serialVersionUID = 3127417155357958498L;
+
+	/**
+	 * 构造
+	 */
+	public CaseInsensitiveFlatMap() {
+		super();
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param threshold 超过多少个元素时转为哈希表
+	 */
+	public CaseInsensitiveFlatMap(int threshold) {
+		super(threshold);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param m Map
+	 */
+	public CaseInsensitiveFlatMap(Map<? extends K, ? extends V> m) {
+		super(m);
+	}
+
+	/**
+	 * 将Key转为小写
+	 *
+	 * @param key KEY
+	 * @return 小写KEY
+	 */
+	@Override
+	protected Object customKey(Object key) {
+		if (null != key && key instanceof CharSequence) {
+			key = key.toString().toLowerCase();
+		}
+		return key;
+	}
+}
@@ -0,0 +1,470 @@
+package me.asu.lang.map;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 忽略大小写的字符串键哈希表。
+ * <p>
+ * 与 {@link CaseInsensitiveMap} 不同，这里不把键转成小写再交给 {@link java.util.HashMap}，
+ * 而是自己维护哈希表，按字符折叠大小写计算哈希、逐字符比较，get / containsKey / remove
+ * 不创建任何对象；查找时可以直接传入任意 {@link CharSequence} (如 StringBuilder)。
+ * <p>
+ * 键保留第一次 put 时的原始大小写，遍历时按原样返回；之后用其他大小写 put 只替换值。
+ * 大小写比较规则与 {@link String#equalsIgnoreCase(String)} 一致。允许 null 键和 null 值，非线程安全。
+ *
+ * @param <V> 值类型
+ */
+public class CaseInsensitiveHashMap<V> extends AbstractMap<String, V> implements Serializable {
+
+    private static final long serialVersionUID = 7510463225462350162L;
+
+    /**
+     * 默认初始容量
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * 默认加载因子
+     */
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * ASCII 字符折叠后的值，查表代替分支
+     */
+    private static final char[] ASCII_FOLD = new char[0x80];
+
+    static {
+        for (char c = 0; c < ASCII_FOLD.length; c++) {
+            ASCII_FOLD[c] = c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+    }
+
+    private final float loadFactor;
+
+    private transient Node<V>[] table;
+    private transient int       size;
+    private transient int       threshold;
+    private transient int       modCount;
+    private transient EntrySet  entrySet;
+
+    public CaseInsensitiveHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public CaseInsensitiveHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity 初始容量
+     * @param loadFactor      加载因子
+     */
+    public CaseInsensitiveHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must >= 0!");
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("loadFactor must > 0!");
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor(initialCapacity));
+    }
+
+    public CaseInsensitiveHashMap(Map<? extends String, ? extends V> m) {
+        this((int) (m.size() / DEFAULT_LOAD_FACTOR) + 1, DEFAULT_LOAD_FACTOR);
+        putAll(m);
+    }
+
+    // ==============================Hash===========================================
+
+    /**
+     * 折叠大小写，与 {@link String#equalsIgnoreCase(String)} 的逐字符规则等价
+     */
+    private static int fold(char c) {
+        if (c < 0x80) {
+            return ASCII_FOLD[c];
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int hash(CharSequence key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = 0;
+        for (int i = 0, n = key.length(); i < n; i++) {
+            h = 31 * h + fold(key.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String k, CharSequence key) {
+        if (k == key) {
+            return true;
+        }
+        if (k == null || key == null || k.length() != key.length()) {
+            return false;
+        }
+        // 大小写完全相同是最常见的情况，String.equals 有 intrinsic
+        if (key instanceof String && k.equals(key)) {
+            return true;
+        }
+        for (int i = 0, n = k.length(); i < n; i++) {
+            char a = k.charAt(i);
+            char b = key.charAt(i);
+            if (a != b && fold(a) != fold(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = 1;
+        while (n < capacity && n < MAXIMUM_CAPACITY) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Node<V>[] newTable(int capacity) {
+        return (Node<V>[]) new Node<?>[capacity];
+    }
+
+    private void allocate(int capacity) {
+        table = newTable(capacity);
+        threshold = capacity >= MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) (capacity * loadFactor);
+    }
+
+    // ==============================Query==========================================
+
+    private Node<V> getNode(Object key) {
+        if (key != null && !(key instanceof CharSequence)) {
+            return null;
+        }
+        CharSequence k = (CharSequence) key;
+        int h = hash(k);
+        for (Node<V> e = table[h & (table.length - 1)]; e != null; e = e.next) {
+            if (e.hash == h && matches(e.key, k)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<V> e = getNode(key);
+        return e == null ? null : e.value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        Node<V> e = getNode(key);
+        return e == null ? defaultValue : e.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getNode(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Node<V> head : table) {
+            for (Node<V> e = head; e != null; e = e.next) {
+                if (value == null ? e.value == null : value.equals(e.value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param key 任意大小写的键
+     * @return 表中保存的原始大小写的键，不存在时返回 null
+     */
+    public String originalKey(CharSequence key) {
+        Node<V> e = getNode(key);
+        return e == null ? null : e.key;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ==============================Update=========================================
+
+    /**
+     * 键已存在 (忽略大小写) 时只替换值，保留原来的键
+     */
+    @Override
+    public V put(String key, V value) {
+        int h = hash(key);
+        int i = h & (table.length - 1);
+        for (Node<V> e = table[i]; e != null; e = e.next) {
+            if (e.hash == h && matches(e.key, key)) {
+                V old = e.value;
+                e.value = value;
+                return old;
+            }
+        }
+        table[i] = new Node<V>(h, key, value, table[i]);
+        modCount++;
+        if (++size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends V> m) {
+        for (Entry<? extends String, ? extends V> entry : m.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (key != null && !(key instanceof CharSequence)) {
+            return null;
+        }
+        Node<V> e = removeNode(hash((CharSequence) key), (CharSequence) key);
+        return e == null ? null : e.value;
+    }
+
+    private Node<V> removeNode(int h, CharSequence key) {
+        int i = h & (table.length - 1);
+        Node<V> prev = null;
+        for (Node<V> e = table[i]; e != null; prev = e, e = e.next) {
+            if (e.hash == h && matches(e.key, key)) {
+                if (prev == null) {
+                    table[i] = e.next;
+                } else {
+                    prev.next = e.next;
+                }
+                size--;
+                modCount++;
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(table, null);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    private void resize() {
+        Node<V>[] old = table;
+        if (old.length >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        allocate(old.length << 1);
+        int mask = table.length - 1;
+        for (Node<V> head : old) {
+            for (Node<V> e = head, next; e != null; e = next) {
+                next = e.next;
+                int i = e.hash & mask;
+                e.next = table[i];
+                table[i] = e;
+            }
+        }
+    }
+
+    // ==============================Views==========================================
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        EntrySet es = entrySet;
+        return es != null ? es : (entrySet = new EntrySet());
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, V>> {
+
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CaseInsensitiveHashMap.this.clear();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            Node<V> e = getNode(entry.getKey());
+            return e != null && e.equals(entry);
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, V>> {
+
+        private Node<V> next;
+        private Node<V> current;
+        private int     index;
+        private int     expectedModCount = modCount;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            Node<V>[] t = table;
+            while (next == null && index < t.length) {
+                next = t[index++];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<String, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Node<V> e = next;
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            current = e;
+            next = e.next;
+            advance();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeNode(current.hash, current.key);
+            current = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    private static final class Node<V> implements Entry<String, V> {
+
+        final int    hash;
+        final String key;
+        V            value;
+        Node<V>      next;
+
+        Node(int hash, String key, V value, Node<V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            Object k = e.getKey();
+            Object v = e.getValue();
+            return (key == null ? k == null : key.equals(k))
+                    && (value == null ? v == null : value.equals(v));
+        }
+
+        @Override
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    // ==============================Serialization==================================
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (Node<V> head : table) {
+            for (Node<V> e = head; e != null; e = e.next) {
+                out.writeObject(e.key);
+                out.writeObject(e.value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int n = in.readInt();
+        if (n < 0) {
+            throw new InvalidObjectException("Illegal size: " + n);
+        }
+        allocate(tableSizeFor((int) Math.min(MAXIMUM_CAPACITY, n / loadFactor + 1)));
+        for (int i = 0; i < n; i++) {
+            put((String) in.readObject(), (V) in.readObject());
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Map;
 /**
  * 忽略大小写的Map<br>
  * 对KEY忽略大小写，get("Value")和get("value")获得的值相同，put进入的值也会被覆盖
+ * 每次查找都会把KEY转为小写，KEY为字符串且查找频繁时可使用不分配对象的 {@link CaseInsensitiveHashMap}
  * 
  * @author Looly
  *
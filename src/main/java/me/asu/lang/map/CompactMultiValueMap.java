@@ -0,0 +1,216 @@
+package me.asu.lang.map;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 节省内存的 {@link MultiValueMap}，绝大多数键只有一个值时使用。
+ * <p>
+ * 只有一个值的键直接把值放在 Map 中，不创建 List；第二个值到来时才换成 List。
+ * 与 {@link MultiValueMap.LinkedMultiValueMap} 一样按添加顺序遍历，非线程安全。
+ * {@link #getValues(Object)} 返回的是只读视图。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class CompactMultiValueMap<K, V> implements MultiValueMap<K, V> {
+
+    /**
+     * 值为 null 时的占位
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * 值为单个对象 (或 {@link #NULL})，或者是 {@link Values}
+     */
+    private final LinkedHashMap<K, Object> source;
+
+    public CompactMultiValueMap() {
+        this.source = new LinkedHashMap<K, Object>();
+    }
+
+    public CompactMultiValueMap(int initialCapacity) {
+        this.source = new LinkedHashMap<K, Object>(initialCapacity);
+    }
+
+    /**
+     * 有多个值的键，专用类型以便与值本身是 List 的情况区分
+     */
+    private static final class Values extends ArrayList<Object> {
+
+        private static final long serialVersionUID = 3466813384524620227L;
+
+        Values(int initialCapacity) {
+            super(initialCapacity);
+        }
+    }
+
+    private static Object mask(Object value) {
+        return value == null ? NULL : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unmask(Object value) {
+        return value == NULL ? null : (V) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> List<V> asList(Object stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored instanceof Values) {
+            return (List<V>) Collections.unmodifiableList((Values) stored);
+        }
+        return Collections.singletonList(CompactMultiValueMap.<V>unmask(stored));
+    }
+
+    @Override
+    public void add(K key, V value) {
+        if (key == null) {
+            return;
+        }
+        Object stored = source.get(key);
+        if (stored == null) {
+            source.put(key, mask(value));
+        } else if (stored instanceof Values) {
+            ((Values) stored).add(value);
+        } else {
+            Values values = new Values(4);
+            values.add(unmask(stored));
+            values.add(value);
+            source.put(key, values);
+        }
+    }
+
+    @Override
+    public void add(K key, List<V> values) {
+        for (V value : values) {
+            add(key, value);
+        }
+    }
+
+    @Override
+    public void set(K key, V value) {
+        if (key != null) {
+            source.put(key, mask(value));
+        }
+    }
+
+    @Override
+    public void set(K key, List<V> values) {
+        source.remove(key);
+        add(key, values);
+    }
+
+    @Override
+    public void set(Map<K, List<V>> map) {
+        source.clear();
+        for (Map.Entry<K, List<V>> entry : map.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public List<V> remove(K key) {
+        return asList(source.remove(key));
+    }
+
+    @Override
+    public void clear() {
+        source.clear();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return source.keySet();
+    }
+
+    @Override
+    public List<V> values() {
+        List<V> re = new ArrayList<V>(source.size());
+        for (Object stored : source.values()) {
+            if (stored instanceof Values) {
+                for (Object value : (Values) stored) {
+                    re.add(CompactMultiValueMap.<V>unmask(value));
+                }
+            } else {
+                re.add(CompactMultiValueMap.<V>unmask(stored));
+            }
+        }
+        return re;
+    }
+
+    @Override
+    public List<V> getValues(K key) {
+        return asList(source.get(key));
+    }
+
+    @Override
+    public V getValue(K key, int index) {
+        Object stored = source.get(key);
+        if (stored instanceof Values) {
+            Values values = (Values) stored;
+            return index < values.size() ? CompactMultiValueMap.<V>unmask(values.get(index)) : null;
+        }
+        return stored != null && index == 0 ? CompactMultiValueMap.<V>unmask(stored) : null;
+    }
+
+    /**
+     * @param key 键
+     * @return 该键的值的个数
+     */
+    public int valueCount(K key) {
+        Object stored = source.get(key);
+        if (stored == null) {
+            return 0;
+        }
+        return stored instanceof Values ? ((Values) stored).size() : 1;
+    }
+
+    @Override
+    public void forEachValue(BiConsumer<? super K, ? super V> action) {
+        for (Map.Entry<K, Object> entry : source.entrySet()) {
+            Object stored = entry.getValue();
+            if (stored instanceof Values) {
+                for (Object value : (Values) stored) {
+                    action.accept(entry.getKey(), CompactMultiValueMap.<V>unmask(value));
+                }
+            } else {
+                action.accept(entry.getKey(), CompactMultiValueMap.<V>unmask(stored));
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return source.containsKey(key);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<K, Object> entry : source.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey()).append('=').append(asList(entry.getValue()));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,306 @@
+package me.asu.lang.map;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import me.asu.lang.unsafe.FieldUpdaters;
+import me.asu.lang.unsafe.ReferenceFieldUpdater;
+
+/**
+ * 线程安全的 {@link MultiValueMap}。
+ * <p>
+ * 键放在 {@link ConcurrentHashMap} 中，每个键的值是一个写时复制的数组，追加、替换、删除都是对数组引用的 CAS，
+ * 不加锁；读取直接拿到当前数组的快照，{@link #forEachValue(BiConsumer)} 遍历时不复制。
+ * 删除键时先把数组 CAS 为删除标记，再从 Map 中移除，并发追加的线程看到标记后会重新创建，不会丢失数据。
+ * <p>
+ * 适合每个键的值不多、读多写少的场景，每次追加都会复制该键的数组。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class ConcurrentMultiValueMap<K, V> implements MultiValueMap<K, V> {
+
+    /**
+     * 已删除的标记
+     */
+    private static final Object[] REMOVED = new Object[0];
+
+    private final ConcurrentHashMap<K, Values> source;
+
+    public ConcurrentMultiValueMap() {
+        this.source = new ConcurrentHashMap<K, Values>();
+    }
+
+    public ConcurrentMultiValueMap(int initialCapacity) {
+        this.source = new ConcurrentHashMap<K, Values>(initialCapacity);
+    }
+
+    /**
+     * 一个键的所有值
+     */
+    static final class Values {
+
+        private static final ReferenceFieldUpdater<Values, Object[]> ITEMS_UPDATER =
+                FieldUpdaters.newReferenceFieldUpdater(MethodHandles.lookup(), Values.class, "items");
+
+        volatile Object[] items;
+
+        Values(Object[] items) {
+            this.items = items;
+        }
+
+        /**
+         * @return 追加成功返回 true，已被删除返回 false
+         */
+        boolean append(Object[] added) {
+            for (; ; ) {
+                Object[] current = items;
+                if (current == REMOVED) {
+                    return false;
+                }
+                Object[] update = Arrays.copyOf(current, current.length + added.length);
+                System.arraycopy(added, 0, update, current.length, added.length);
+                if (ITEMS_UPDATER.compareAndSet(this, current, update)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * @return 替换成功返回 true，已被删除返回 false
+         */
+        boolean replace(Object[] update) {
+            for (; ; ) {
+                Object[] current = items;
+                if (current == REMOVED) {
+                    return false;
+                }
+                if (ITEMS_UPDATER.compareAndSet(this, current, update)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * @return 删除前的值，已被别人删除时返回 null
+         */
+        Object[] markRemoved() {
+            for (; ; ) {
+                Object[] current = items;
+                if (current == REMOVED) {
+                    return null;
+                }
+                if (ITEMS_UPDATER.compareAndSet(this, current, REMOVED)) {
+                    return current;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> List<V> asList(Object[] items) {
+        return (List<V>) Collections.unmodifiableList(Arrays.asList(items));
+    }
+
+    private void addAll(K key, Object[] added) {
+        if (key == null || added.length == 0) {
+            return;
+        }
+        for (; ; ) {
+            Values values = source.get(key);
+            if (values == null) {
+                values = source.putIfAbsent(key, new Values(added));
+                if (values == null) {
+                    return;
+                }
+            }
+            if (values.append(added)) {
+                return;
+            }
+            // 正在被删除，帮忙移除后重试
+            source.remove(key, values);
+        }
+    }
+
+    private void setAll(K key, Object[] update) {
+        if (key == null) {
+            return;
+        }
+        for (; ; ) {
+            Values values = source.get(key);
+            if (values == null) {
+                values = source.putIfAbsent(key, new Values(update));
+                if (values == null) {
+                    return;
+                }
+            }
+            if (values.replace(update)) {
+                return;
+            }
+            source.remove(key, values);
+        }
+    }
+
+    @Override
+    public void add(K key, V value) {
+        addAll(key, new Object[]{value});
+    }
+
+    /**
+     * 一次追加所有值，其他线程要么看到全部，要么一个也看不到
+     */
+    @Override
+    public void add(K key, List<V> values) {
+        addAll(key, values.toArray());
+    }
+
+    @Override
+    public void set(K key, V value) {
+        setAll(key, new Object[]{value});
+    }
+
+    @Override
+    public void set(K key, List<V> values) {
+        setAll(key, values.toArray());
+    }
+
+    @Override
+    public void set(Map<K, List<V>> map) {
+        clear();
+        for (Map.Entry<K, List<V>> entry : map.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public List<V> remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        Values values = source.get(key);
+        if (values == null) {
+            return null;
+        }
+        Object[] items = values.markRemoved();
+        source.remove(key, values);
+        return items == null ? null : ConcurrentMultiValueMap.<V>asList(items);
+    }
+
+    @Override
+    public void clear() {
+        for (K key : source.keySet()) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return source.keySet();
+    }
+
+    /**
+     * @return 所有值的快照
+     */
+    @Override
+    public List<V> values() {
+        final List<V> re = new ArrayList<V>();
+        forEachValue(new BiConsumer<K, V>() {
+            @Override
+            public void accept(K k, V v) {
+                re.add(v);
+            }
+        });
+        return re;
+    }
+
+    /**
+     * @return 该键当前所有值的只读快照，键不存在时返回 null
+     */
+    @Override
+    public List<V> getValues(K key) {
+        Object[] items = items(key);
+        return items == null ? null : ConcurrentMultiValueMap.<V>asList(items);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V getValue(K key, int index) {
+        Object[] items = items(key);
+        if (items != null && index < items.length) {
+            return (V) items[index];
+        }
+        return null;
+    }
+
+    private Object[] items(K key) {
+        if (key == null) {
+            return null;
+        }
+        Values values = source.get(key);
+        if (values == null) {
+            return null;
+        }
+        Object[] items = values.items;
+        return items == REMOVED ? null : items;
+    }
+
+    /**
+     * @param key 键
+     * @return 该键当前值的个数
+     */
+    public int valueCount(K key) {
+        Object[] items = items(key);
+        return items == null ? 0 : items.length;
+    }
+
+    /**
+     * 遍历所有值，每个键遍历的是其值的一个快照，不复制
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEachValue(BiConsumer<? super K, ? super V> action) {
+        for (Map.Entry<K, Values> entry : source.entrySet()) {
+            Object[] items = entry.getValue().items;
+            for (Object item : items) {
+                action.accept(entry.getKey(), (V) item);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return items(key) != null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<K, Values> entry : source.entrySet()) {
+            Object[] items = entry.getValue().items;
+            if (items == REMOVED) {
+                continue;
+            }
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey()).append('=').append(Arrays.toString(items));
+        }
+        return sb.append('}').toString();
+    }
+}
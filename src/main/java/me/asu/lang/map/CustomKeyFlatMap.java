@@ -0,0 +1,336 @@
+package me.asu.lang.map;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 自定义键的小Map，键值交替存放在一个 Object[] 中，按添加顺序遍历。
+ * <p>
+ * 元素不超过 threshold 个时线性查找，没有 Entry 对象，也没有哈希表；
+ * 超过后整体转为 {@link LinkedHashMap}，之后不再转回。
+ * 适合请求头、窄表的一行这类通常只有十几个键的 Map。非线程安全。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see CustomKeyMap
+ */
+public abstract class CustomKeyFlatMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private static final long serialVersionUID = -2209377404359211316L;
+
+    /**
+     * 默认转为哈希表的元素个数
+     */
+    public static final int DEFAULT_THRESHOLD = 16;
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final int threshold;
+
+    /**
+     * k0, v0, k1, v1 ...，转为哈希表后为 null
+     */
+    private Object[] table = EMPTY;
+    private int      size;
+
+    /**
+     * 超过 threshold 后使用的哈希表
+     */
+    private LinkedHashMap<K, V> hashed;
+
+    private transient int      modCount;
+    private transient EntrySet entrySet;
+
+    /**
+     * 构造
+     */
+    public CustomKeyFlatMap() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * 构造
+     *
+     * @param threshold 超过多少个元素时转为哈希表
+     */
+    public CustomKeyFlatMap(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must > 0!");
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * 构造
+     *
+     * @param m Map
+     */
+    public CustomKeyFlatMap(Map<? extends K, ? extends V> m) {
+        this(Math.max(DEFAULT_THRESHOLD, m.size()));
+        putAll(m);
+    }
+
+    /**
+     * 自定义键
+     *
+     * @param key KEY
+     * @return 自定义KEY
+     */
+    protected abstract Object customKey(Object key);
+
+    /**
+     * @return 是否已转为哈希表
+     */
+    public boolean isHashed() {
+        return hashed != null;
+    }
+
+    private int indexOf(Object key) {
+        Object[] t = table;
+        for (int i = 0, n = size << 1; i < n; i += 2) {
+            Object k = t[i];
+            if (k == key || (key != null && key.equals(k))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        key = customKey(key);
+        if (hashed != null) {
+            return hashed.get(key);
+        }
+        int i = indexOf(key);
+        return i < 0 ? null : (V) table[i + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        key = customKey(key);
+        if (hashed != null) {
+            return hashed.containsKey(key);
+        }
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(K key, V value) {
+        key = (K) customKey(key);
+        if (hashed != null) {
+            return hashed.put(key, value);
+        }
+        int i = indexOf(key);
+        if (i >= 0) {
+            V old = (V) table[i + 1];
+            table[i + 1] = value;
+            return old;
+        }
+        if (size == threshold) {
+            promote();
+            return hashed.put(key, value);
+        }
+        int n = size << 1;
+        if (n == table.length) {
+            table = Arrays.copyOf(table, Math.max(8, Math.min(n << 1, threshold << 1)));
+        }
+        table[n] = key;
+        table[n + 1] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void promote() {
+        LinkedHashMap<K, V> map = new LinkedHashMap<K, V>((int) (size / 0.75f) + 2);
+        for (int i = 0, n = size << 1; i < n; i += 2) {
+            map.put((K) table[i], (V) table[i + 1]);
+        }
+        hashed = map;
+        table = null;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            this.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        key = customKey(key);
+        if (hashed != null) {
+            return hashed.remove(key);
+        }
+        int i = indexOf(key);
+        return i < 0 ? null : removeAt(i);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V removeAt(int i) {
+        V old = (V) table[i + 1];
+        int n = size << 1;
+        System.arraycopy(table, i + 2, table, i, n - i - 2);
+        table[n - 2] = null;
+        table[n - 1] = null;
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return hashed != null ? hashed.size() : size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 清空后回到线性查找
+     */
+    @Override
+    public void clear() {
+        hashed = null;
+        table = EMPTY;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        EntrySet es = entrySet;
+        return es != null ? es : (entrySet = new EntrySet());
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            if (hashed != null) {
+                return hashed.entrySet().iterator();
+            }
+            return new FlatIterator();
+        }
+
+        @Override
+        public int size() {
+            return CustomKeyFlatMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            CustomKeyFlatMap.this.clear();
+        }
+    }
+
+    private final class FlatIterator implements Iterator<Entry<K, V>> {
+
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size << 1;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next += 2;
+            return new FlatEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class FlatEntry implements Entry<K, V> {
+
+        private final Object[] t = table;
+        private final int      i;
+
+        FlatEntry(int i) {
+            this.i = i;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public K getKey() {
+            return (K) t[i];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public V getValue() {
+            return (V) t[i + 1];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public V setValue(V value) {
+            V old = (V) t[i + 1];
+            t[i + 1] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            Object k = getKey();
+            Object v = getValue();
+            return (k == null ? e.getKey() == null : k.equals(e.getKey()))
+                    && (v == null ? e.getValue() == null : v.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object k = getKey();
+            Object v = getValue();
+            return (k == null ? 0 : k.hashCode()) ^ (v == null ? 0 : v.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package me.asu.lang.map;
+
+import java.util.Arrays;
+
+/**
+ * 以 {@code long} 为键、{@code int} 为值的哈希表，开放寻址 + 线性探测。
+ * <p>
+ * 键与值分别存放在两个原始类型数组中，没有 Entry 对象，也不装箱；
+ * 键 0 作为空槽标记，真正的键 0 单独存放。删除时向后移动后续元素，不留墓碑。
+ * {@link #forEach(Visitor)} 遍历时不分配对象。非线程安全。
+ */
+public class LongIntMap {
+
+    /**
+     * 默认初始容量
+     */
+    public static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * 默认加载因子
+     */
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private static final long FREE_KEY = 0;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final float loadFactor;
+    private final int   noEntryValue;
+
+    private long[] keys;
+    private int[]  values;
+    private int    mask;
+    private int    threshold;
+    private int    size;
+
+    /**
+     * 键 0 是否存在，及其对应的值
+     */
+    private boolean hasFreeKey;
+    private int     freeValue;
+
+    public LongIntMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public LongIntMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongIntMap(int expectedSize, float loadFactor) {
+        this(expectedSize, loadFactor, 0);
+    }
+
+    /**
+     * @param expectedSize 预计元素个数
+     * @param loadFactor   加载因子 (0, 1)
+     * @param noEntryValue 键不存在时 {@link #get(long)}、{@link #put(long, int)}、{@link #remove(long)} 的返回值
+     */
+    public LongIntMap(int expectedSize, float loadFactor, int noEntryValue) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must >= 0!");
+        }
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("loadFactor must in (0, 1)!");
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(tableSize(expectedSize, loadFactor));
+    }
+
+    public int get(long key) {
+        return get(key, noEntryValue);
+    }
+
+    public int get(long key, int defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeValue : defaultValue;
+        }
+        int pos = indexOf(key);
+        return pos < 0 ? defaultValue : values[pos];
+    }
+
+    public boolean containsKey(long key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return 原来的值，原来不存在时返回 noEntryValue
+     */
+    public int put(long key, int value) {
+        if (key == FREE_KEY) {
+            int old = hasFreeKey ? freeValue : noEntryValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeValue = value;
+            return old;
+        }
+        int pos = hash(key) & mask;
+        long k;
+        while ((k = keys[pos]) != FREE_KEY) {
+            if (k == key) {
+                int old = values[pos];
+                values[pos] = value;
+                return old;
+            }
+            pos = (pos + 1) & mask;
+        }
+        // 键 0 不占槽位，按表中实际的键数判断；只有到达最大容量、不能再扩容时才会成立
+        if (size - (hasFreeKey ? 1 : 0) >= threshold) {
+            throw new IllegalStateException("Map is full: " + size + " entries");
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size >= threshold) {
+            grow();
+        }
+        return noEntryValue;
+    }
+
+    /**
+     * 把 delta 加到键对应的值上，键不存在时视为从 noEntryValue 开始
+     *
+     * @return 相加后的值
+     */
+    public int addTo(long key, int delta) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+                freeValue = noEntryValue;
+            }
+            return freeValue += delta;
+        }
+        int pos = hash(key) & mask;
+        long k;
+        while ((k = keys[pos]) != FREE_KEY) {
+            if (k == key) {
+                return values[pos] += delta;
+            }
+            pos = (pos + 1) & mask;
+        }
+        // 键 0 不占槽位，按表中实际的键数判断；只有到达最大容量、不能再扩容时才会成立
+        if (size - (hasFreeKey ? 1 : 0) >= threshold) {
+            throw new IllegalStateException("Map is full: " + size + " entries");
+        }
+        keys[pos] = key;
+        int value = values[pos] = noEntryValue + delta;
+        if (++size >= threshold) {
+            grow();
+        }
+        return value;
+    }
+
+    /**
+     * @return 被删除的值，键不存在时返回 noEntryValue
+     */
+    public int remove(long key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return noEntryValue;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeValue;
+        }
+        int pos = indexOf(key);
+        if (pos < 0) {
+            return noEntryValue;
+        }
+        int old = values[pos];
+        size--;
+        shiftKeys(pos);
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public LongIntMap clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasFreeKey = false;
+        size = 0;
+        return this;
+    }
+
+    /**
+     * 遍历所有键值对，不分配对象。遍历过程中不能修改本表。
+     *
+     * @param visitor 返回 false 时停止遍历
+     * @return 是否遍历完所有元素
+     */
+    public boolean forEach(Visitor visitor) {
+        if (hasFreeKey && !visitor.visit(FREE_KEY, freeValue)) {
+            return false;
+        }
+        long[] ks = keys;
+        int[] vs = values;
+        for (int i = 0; i < ks.length; i++) {
+            if (ks[i] != FREE_KEY && !visitor.visit(ks[i], vs[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long[] keys() {
+        long[] re = new long[size];
+        int n = 0;
+        if (hasFreeKey) {
+            re[n++] = FREE_KEY;
+        }
+        for (long k : keys) {
+            if (k != FREE_KEY) {
+                re[n++] = k;
+            }
+        }
+        return re;
+    }
+
+    public int[] values() {
+        int[] re = new int[size];
+        int n = 0;
+        if (hasFreeKey) {
+            re[n++] = freeValue;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                re[n++] = values[i];
+            }
+        }
+        return re;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        forEach(new Visitor() {
+            @Override
+            public boolean visit(long key, int value) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(key).append('=').append(value);
+                return true;
+            }
+        });
+        return sb.append('}').toString();
+    }
+
+    private int indexOf(long key) {
+        int pos = hash(key) & mask;
+        long k;
+        while ((k = keys[pos]) != FREE_KEY) {
+            if (k == key) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 删除 pos 处的元素后，把后续同一探测链上的元素向前移动，保证查找不会提前遇到空槽
+     */
+    private void shiftKeys(int pos) {
+        int last;
+        int slot;
+        long k;
+        for (; ; ) {
+            pos = ((last = pos) + 1) & mask;
+            for (; ; ) {
+                if ((k = keys[pos]) == FREE_KEY) {
+                    keys[last] = FREE_KEY;
+                    return;
+                }
+                slot = hash(k) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = k;
+            values[last] = values[pos];
+        }
+    }
+
+    /**
+     * 容量翻倍；已到最大容量时不再扩容，表中仍留有空槽，之后插入新键时抛出异常
+     */
+    private void grow() {
+        if (keys.length < MAX_CAPACITY) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k != FREE_KEY) {
+                int pos = hash(k) & mask;
+                while (keys[pos] != FREE_KEY) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = k;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = Math.min(capacity - 1, (int) Math.ceil(capacity * loadFactor));
+    }
+
+    private static int tableSize(int expectedSize, float loadFactor) {
+        long n = Math.max(2, (long) Math.ceil(expectedSize / loadFactor));
+        if (n > MAX_CAPACITY) {
+            throw new IllegalArgumentException("too large expectedSize: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) n - 1) << 1;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 遍历回调
+     */
+    public interface Visitor {
+
+        /**
+         * @return 返回 false 时停止遍历
+         */
+        boolean visit(long key, int value);
+    }
+}
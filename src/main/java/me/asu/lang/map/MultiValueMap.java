@@ -1,6 +1,7 @@
 package me.asu.lang.map;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 public interface MultiValueMap<K, V> {
 
@@ -113,10 +114,42 @@ public interface MultiValueMap<K, V> {
      */
     boolean containsKey(K key);
 
+    /**
+     * 遍历所有的Key-Value，不复制值列表。
+     *
+     * @param action action.
+     */
+    default void forEachValue(BiConsumer<? super K, ? super V> action) {
+        for (K key : keySet()) {
+            List<V> values = getValues(key);
+            if (values != null) {
+                for (V value : values) {
+                    action.accept(key, value);
+                }
+            }
+        }
+    }
+
     static <K, V> MultiValueMap<K, V> create() {
         return new LinkedMultiValueMap<K, V>();
     }
 
+    /**
+     * @return 线程安全的MultiValueMap
+     * @see ConcurrentMultiValueMap
+     */
+    static <K, V> MultiValueMap<K, V> createConcurrent() {
+        return new ConcurrentMultiValueMap<K, V>();
+    }
+
+    /**
+     * @return 单值的Key不创建List的MultiValueMap
+     * @see CompactMultiValueMap
+     */
+    static <K, V> MultiValueMap<K, V> createCompact() {
+        return new CompactMultiValueMap<K, V>();
+    }
+
     public static class LinkedMultiValueMap<K, V> implements MultiValueMap<K, V> {
 
         protected Map<K, List<V>> mSource = new LinkedHashMap<K, List<V>>();
@@ -192,6 +225,15 @@ public interface MultiValueMap<K, V> {
             return allValues;
         }
 
+        @Override
+        public void forEachValue(BiConsumer<? super K, ? super V> action) {
+            for (Map.Entry<K, List<V>> entry : mSource.entrySet()) {
+                for (V value : entry.getValue()) {
+                    action.accept(entry.getKey(), value);
+                }
+            }
+        }
+
         @Override
         public List<V> getValues(K key) {
             return mSource.get(key);
@@ -0,0 +1,347 @@
+package me.asu.lang.unsafe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates field updaters with the best implementation available on the running JVM.
+ * <p>
+ * The implementation is picked once at startup, in order of preference:
+ * <ol>
+ * <li>{@link Kind#UNSAFE}: {@code sun.misc.Unsafe}, see {@link UnsafeUpdater}, as long as it is
+ * available and the JDK is older than 23, where its memory access methods are deprecated
+ * for removal;</li>
+ * <li>{@link Kind#VAR_HANDLE}: {@code java.lang.invoke.VarHandle}, JDK 9+. The handles live in
+ * instance fields and are not constant-folded by the JIT, so they are somewhat slower than
+ * Unsafe, but still avoid the access checks of the reflection based updaters;</li>
+ * <li>{@link Kind#REFLECTION}: the JDK {@code Atomic*FieldUpdater}s. They check access against
+ * the class that creates them, which is never the class declaring the field, so the field can't be
+ * private. They are created through the {@link MethodHandles.Lookup} passed by the caller, so a
+ * package-private field works; without one the field and its class must be public.</li>
+ * </ol>
+ * It can be forced with the system property {@code me.asu.lang.unsafe.updater}
+ * ({@code var_handle}, {@code unsafe} or {@code reflection}). If an updater can't be created
+ * with the chosen implementation, the next one is tried.
+ * <p>
+ * Fields updated with these updaters should be package-private volatile fields, with the declaring
+ * class passing {@code MethodHandles.lookup()}.
+ */
+public final class FieldUpdaters {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FieldUpdaters.class);
+
+    public static final String KIND_PROPERTY = "me.asu.lang.unsafe.updater";
+
+    public enum Kind {
+        UNSAFE, VAR_HANDLE, REFLECTION
+    }
+
+    private static final Kind KIND;
+
+    static {
+        Kind kind = null;
+        String name = System.getProperty(KIND_PROPERTY);
+        if (name != null) {
+            try {
+                kind = Kind.valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Unknown {}: {}.", KIND_PROPERTY, name);
+            }
+        }
+        if (kind == null) {
+            if (UnsafeUpdater.getUnsafe() != null && javaVersion() < 23) {
+                kind = Kind.UNSAFE;
+            } else if (VarHandles.isAvailable()) {
+                kind = Kind.VAR_HANDLE;
+            } else if (UnsafeUpdater.getUnsafe() != null) {
+                kind = Kind.UNSAFE;
+            } else {
+                kind = Kind.REFLECTION;
+            }
+        }
+        KIND = kind;
+        LOGGER.debug("Field updaters use {}.", KIND);
+    }
+
+    private FieldUpdaters() {
+    }
+
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version", "1.8");
+        try {
+            if (version.startsWith("1.")) {
+                return Integer.parseInt(version.substring(2));
+            }
+            return Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 8;
+        }
+    }
+
+    /**
+     * The preferred implementation first, then the others as fallbacks.
+     */
+    private static Kind[] candidates(Kind preferred) {
+        Kind[] all = Kind.values();
+        Kind[] re = new Kind[all.length];
+        re[0] = preferred;
+        int n = 1;
+        for (Kind kind : all) {
+            if (kind != preferred) {
+                re[n++] = kind;
+            }
+        }
+        return re;
+    }
+
+    /**
+     * Returns the implementation picked at startup.
+     */
+    public static Kind kind() {
+        return KIND;
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field.
+     *
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    public static <U> IntegerFieldUpdater<U> newIntegerFieldUpdater(Class<? super U> tClass,
+            String fieldName) {
+        return newIntegerFieldUpdater(KIND, tClass, fieldName);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field, preferring the given
+     * implementation.
+     *
+     * @param kind      the preferred implementation.
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    public static <U> IntegerFieldUpdater<U> newIntegerFieldUpdater(Kind kind,
+            Class<? super U> tClass, String fieldName) {
+        return newIntegerFieldUpdater(kind, null, tClass, fieldName);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field, accessed with the
+     * caller's lookup.
+     *
+     * @param lookup    the caller's lookup, usually {@code MethodHandles.lookup()} in the
+     *                  class declaring the field.
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    public static <U> IntegerFieldUpdater<U> newIntegerFieldUpdater(
+            MethodHandles.Lookup lookup, Class<? super U> tClass, String fieldName) {
+        return newIntegerFieldUpdater(KIND, lookup, tClass, fieldName);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field, accessed with the
+     * caller's lookup, preferring the given implementation.
+     *
+     * @param kind      the preferred implementation.
+     * @param lookup    the caller's lookup, or null if the field is public.
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    @SuppressWarnings("unchecked")
+    public static <U> IntegerFieldUpdater<U> newIntegerFieldUpdater(Kind kind,
+            MethodHandles.Lookup lookup, Class<? super U> tClass, String fieldName) {
+        Throwable cause = null;
+        for (Kind candidate : candidates(kind)) {
+            try {
+                switch (candidate) {
+                    case VAR_HANDLE:
+                        return new VarHandleIntegerFieldUpdater<U>(lookup, tClass, fieldName);
+                    case UNSAFE:
+                        return new UnsafeIntegerFieldUpdater<U>(UnsafeUpdater.getUnsafe(), tClass,
+                                fieldName);
+                    default:
+                        return new ReflectionIntegerFieldUpdater<U>(
+                                (AtomicIntegerFieldUpdater<U>) newAtomicUpdater(lookup,
+                                        AtomicIntegerFieldUpdater.class, tClass, fieldName));
+                }
+            } catch (Throwable t) {
+                cause = t;
+            }
+        }
+        throw new RuntimeException(cause);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field.
+     *
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    public static <U> LongFieldUpdater<U> newLongFieldUpdater(Class<? super U> tClass,
+            String fieldName) {
+        return newLongFieldUpdater(KIND, tClass, fieldName);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field, preferring the given
+     * implementation.
+     *
+     * @param kind      the preferred implementation.
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    public static <U> LongFieldUpdater<U> newLongFieldUpdater(Kind kind,
+            Class<? super U> tClass, String fieldName) {
+        return newLongFieldUpdater(kind, null, tClass, fieldName);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field, accessed with the
+     * caller's lookup.
+     *
+     * @param lookup    the caller's lookup, usually {@code MethodHandles.lookup()} in the
+     *                  class declaring the field.
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    public static <U> LongFieldUpdater<U> newLongFieldUpdater(
+            MethodHandles.Lookup lookup, Class<? super U> tClass, String fieldName) {
+        return newLongFieldUpdater(KIND, lookup, tClass, fieldName);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field, accessed with the
+     * caller's lookup, preferring the given implementation.
+     *
+     * @param kind      the preferred implementation.
+     * @param lookup    the caller's lookup, or null if the field is public.
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    @SuppressWarnings("unchecked")
+    public static <U> LongFieldUpdater<U> newLongFieldUpdater(Kind kind,
+            MethodHandles.Lookup lookup, Class<? super U> tClass, String fieldName) {
+        Throwable cause = null;
+        for (Kind candidate : candidates(kind)) {
+            try {
+                switch (candidate) {
+                    case VAR_HANDLE:
+                        return new VarHandleLongFieldUpdater<U>(lookup, tClass, fieldName);
+                    case UNSAFE:
+                        return new UnsafeLongFieldUpdater<U>(UnsafeUpdater.getUnsafe(), tClass,
+                                fieldName);
+                    default:
+                        return new ReflectionLongFieldUpdater<U>(
+                                (AtomicLongFieldUpdater<U>) newAtomicUpdater(lookup,
+                                        AtomicLongFieldUpdater.class, tClass, fieldName));
+                }
+            } catch (Throwable t) {
+                cause = t;
+            }
+        }
+        throw new RuntimeException(cause);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field.
+     *
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    public static <U, W> ReferenceFieldUpdater<U, W> newReferenceFieldUpdater(
+            Class<? super U> tClass, String fieldName) {
+        return newReferenceFieldUpdater(KIND, tClass, fieldName);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field, preferring the given
+     * implementation.
+     *
+     * @param kind      the preferred implementation.
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    public static <U, W> ReferenceFieldUpdater<U, W> newReferenceFieldUpdater(Kind kind,
+            Class<? super U> tClass, String fieldName) {
+        return newReferenceFieldUpdater(kind, null, tClass, fieldName);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field, accessed with the
+     * caller's lookup.
+     *
+     * @param lookup    the caller's lookup, usually {@code MethodHandles.lookup()} in the
+     *                  class declaring the field.
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    public static <U, W> ReferenceFieldUpdater<U, W> newReferenceFieldUpdater(
+            MethodHandles.Lookup lookup, Class<? super U> tClass, String fieldName) {
+        return newReferenceFieldUpdater(KIND, lookup, tClass, fieldName);
+    }
+
+    /**
+     * Creates and returns an updater for objects with the given field, accessed with the
+     * caller's lookup, preferring the given implementation.
+     *
+     * @param kind      the preferred implementation.
+     * @param lookup    the caller's lookup, or null if the field is public.
+     * @param tClass    the class of the objects holding the field.
+     * @param fieldName the name of the field to be updated.
+     */
+    @SuppressWarnings("unchecked")
+    public static <U, W> ReferenceFieldUpdater<U, W> newReferenceFieldUpdater(Kind kind,
+            MethodHandles.Lookup lookup, Class<? super U> tClass, String fieldName) {
+        Throwable cause = null;
+        for (Kind candidate : candidates(kind)) {
+            try {
+                switch (candidate) {
+                    case VAR_HANDLE:
+                        return new VarHandleReferenceFieldUpdater<U, W>(lookup, tClass,
+                                fieldName);
+                    case UNSAFE:
+                        return new UnsafeReferenceFieldUpdater<U, W>(UnsafeUpdater.getUnsafe(),
+                                tClass, fieldName);
+                    default:
+                        return new ReflectionReferenceFieldUpdater<U, W>(
+                                (AtomicReferenceFieldUpdater<U, W>) newAtomicUpdater(lookup,
+                                        AtomicReferenceFieldUpdater.class, tClass, fieldName));
+                }
+            } catch (Throwable t) {
+                cause = t;
+            }
+        }
+        throw new RuntimeException(cause);
+    }
+
+    /**
+     * Calls {@code newUpdater} of the given JDK updater class. It checks access against its
+     * caller; invoked through a method handle from the caller's lookup, the caller is a class in
+     * the lookup's package, which can access package-private but not private fields.
+     */
+    private static Object newAtomicUpdater(MethodHandles.Lookup lookup, Class<?> updaterClass,
+            Class<?> tClass, String fieldName) throws Throwable {
+        if (Modifier.isPrivate(tClass.getDeclaredField(fieldName).getModifiers())) {
+            throw new IllegalArgumentException("Field " + tClass.getName() + "." + fieldName
+                    + " is private, the JDK field updaters need it to be at least package-private.");
+        }
+        if (lookup == null) {
+            lookup = MethodHandles.lookup();
+        }
+        if (updaterClass == AtomicReferenceFieldUpdater.class) {
+            Class<?> vClass = tClass.getDeclaredField(fieldName).getType();
+            return lookup.findStatic(updaterClass, "newUpdater",
+                    MethodType.methodType(updaterClass, Class.class, Class.class, String.class))
+                    .invoke(tClass, vClass, fieldName);
+        }
+        return lookup.findStatic(updaterClass, "newUpdater",
+                MethodType.methodType(updaterClass, Class.class, String.class))
+                .invoke(tClass, fieldName);
+    }
+}
@@ -0,0 +1,37 @@
+package me.asu.lang.unsafe;
+
+/**
+ * Atomic access to a {@code int} field, see {@link FieldUpdaters}.
+ * <p>
+ * Access modes follow {@code java.lang.invoke.VarHandle}: plain {@link #get}/{@link #set},
+ * opaque, acquire/release and volatile.
+ */
+public interface IntegerFieldUpdater<U> {
+
+    int get(U obj);
+
+    void set(U obj, int newValue);
+
+    int getVolatile(U obj);
+
+    void setVolatile(U obj, int newValue);
+
+    int getAcquire(U obj);
+
+    void setRelease(U obj, int newValue);
+
+    int getOpaque(U obj);
+
+    void setOpaque(U obj, int newValue);
+
+    /**
+     * Same as {@link #setRelease}.
+     */
+    void lazySet(U obj, int newValue);
+
+    boolean compareAndSet(U obj, int expect, int update);
+
+    int getAndSet(U obj, int newValue);
+
+    int getAndAdd(U obj, int delta);
+}
@@ -0,0 +1,37 @@
+package me.asu.lang.unsafe;
+
+/**
+ * Atomic access to a {@code long} field, see {@link FieldUpdaters}.
+ * <p>
+ * Access modes follow {@code java.lang.invoke.VarHandle}: plain {@link #get}/{@link #set},
+ * opaque, acquire/release and volatile.
+ */
+public interface LongFieldUpdater<U> {
+
+    long get(U obj);
+
+    void set(U obj, long newValue);
+
+    long getVolatile(U obj);
+
+    void setVolatile(U obj, long newValue);
+
+    long getAcquire(U obj);
+
+    void setRelease(U obj, long newValue);
+
+    long getOpaque(U obj);
+
+    void setOpaque(U obj, long newValue);
+
+    /**
+     * Same as {@link #setRelease}.
+     */
+    void lazySet(U obj, long newValue);
+
+    boolean compareAndSet(U obj, long expect, long update);
+
+    long getAndSet(U obj, long newValue);
+
+    long getAndAdd(U obj, long delta);
+}
@@ -0,0 +1,35 @@
+package me.asu.lang.unsafe;
+
+/**
+ * Atomic access to a {@code reference} field, see {@link FieldUpdaters}.
+ * <p>
+ * Access modes follow {@code java.lang.invoke.VarHandle}: plain {@link #get}/{@link #set},
+ * opaque, acquire/release and volatile.
+ */
+public interface ReferenceFieldUpdater<U, W> {
+
+    W get(U obj);
+
+    void set(U obj, W newValue);
+
+    W getVolatile(U obj);
+
+    void setVolatile(U obj, W newValue);
+
+    W getAcquire(U obj);
+
+    void setRelease(U obj, W newValue);
+
+    W getOpaque(U obj);
+
+    void setOpaque(U obj, W newValue);
+
+    /**
+     * Same as {@link #setRelease}.
+     */
+    void lazySet(U obj, W newValue);
+
+    boolean compareAndSet(U obj, W expect, W update);
+
+    W getAndSet(U obj, W newValue);
+}
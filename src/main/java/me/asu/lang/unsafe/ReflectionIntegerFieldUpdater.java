@@ -0,0 +1,76 @@
+package me.asu.lang.unsafe;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * {@link IntegerFieldUpdater} backed by the reflection based {@link AtomicIntegerFieldUpdater}, the field must be volatile
+ * and accessible from this package. Used when neither VarHandle nor Unsafe is available.
+ */
+final class ReflectionIntegerFieldUpdater<U> implements IntegerFieldUpdater<U> {
+
+    private final AtomicIntegerFieldUpdater<U> updater;
+
+    ReflectionIntegerFieldUpdater(AtomicIntegerFieldUpdater<U> updater) {
+        this.updater = updater;
+    }
+
+    @Override
+    public int get(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void set(U obj, int newValue) {
+        updater.set(obj, newValue);
+    }
+
+    @Override
+    public int getVolatile(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void setVolatile(U obj, int newValue) {
+        updater.set(obj, newValue);
+    }
+
+    @Override
+    public int getAcquire(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void setRelease(U obj, int newValue) {
+        updater.lazySet(obj, newValue);
+    }
+
+    @Override
+    public int getOpaque(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void setOpaque(U obj, int newValue) {
+        updater.lazySet(obj, newValue);
+    }
+
+    @Override
+    public void lazySet(U obj, int newValue) {
+        updater.lazySet(obj, newValue);
+    }
+
+    @Override
+    public boolean compareAndSet(U obj, int expect, int update) {
+        return updater.compareAndSet(obj, expect, update);
+    }
+
+    @Override
+    public int getAndSet(U obj, int newValue) {
+        return updater.getAndSet(obj, newValue);
+    }
+
+    @Override
+    public int getAndAdd(U obj, int delta) {
+        return updater.getAndAdd(obj, delta);
+    }
+}
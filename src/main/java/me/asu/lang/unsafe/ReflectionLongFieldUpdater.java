@@ -0,0 +1,76 @@
+package me.asu.lang.unsafe;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * {@link LongFieldUpdater} backed by the reflection based {@link AtomicLongFieldUpdater}, the field must be volatile
+ * and accessible from this package. Used when neither VarHandle nor Unsafe is available.
+ */
+final class ReflectionLongFieldUpdater<U> implements LongFieldUpdater<U> {
+
+    private final AtomicLongFieldUpdater<U> updater;
+
+    ReflectionLongFieldUpdater(AtomicLongFieldUpdater<U> updater) {
+        this.updater = updater;
+    }
+
+    @Override
+    public long get(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void set(U obj, long newValue) {
+        updater.set(obj, newValue);
+    }
+
+    @Override
+    public long getVolatile(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void setVolatile(U obj, long newValue) {
+        updater.set(obj, newValue);
+    }
+
+    @Override
+    public long getAcquire(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void setRelease(U obj, long newValue) {
+        updater.lazySet(obj, newValue);
+    }
+
+    @Override
+    public long getOpaque(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void setOpaque(U obj, long newValue) {
+        updater.lazySet(obj, newValue);
+    }
+
+    @Override
+    public void lazySet(U obj, long newValue) {
+        updater.lazySet(obj, newValue);
+    }
+
+    @Override
+    public boolean compareAndSet(U obj, long expect, long update) {
+        return updater.compareAndSet(obj, expect, update);
+    }
+
+    @Override
+    public long getAndSet(U obj, long newValue) {
+        return updater.getAndSet(obj, newValue);
+    }
+
+    @Override
+    public long getAndAdd(U obj, long delta) {
+        return updater.getAndAdd(obj, delta);
+    }
+}
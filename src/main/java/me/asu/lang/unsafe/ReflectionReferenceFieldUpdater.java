@@ -0,0 +1,71 @@
+package me.asu.lang.unsafe;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * {@link ReferenceFieldUpdater} backed by the reflection based {@link AtomicReferenceFieldUpdater}, the field must be volatile
+ * and accessible from this package. Used when neither VarHandle nor Unsafe is available.
+ */
+final class ReflectionReferenceFieldUpdater<U, W> implements ReferenceFieldUpdater<U, W> {
+
+    private final AtomicReferenceFieldUpdater<U, W> updater;
+
+    ReflectionReferenceFieldUpdater(AtomicReferenceFieldUpdater<U, W> updater) {
+        this.updater = updater;
+    }
+
+    @Override
+    public W get(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void set(U obj, W newValue) {
+        updater.set(obj, newValue);
+    }
+
+    @Override
+    public W getVolatile(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void setVolatile(U obj, W newValue) {
+        updater.set(obj, newValue);
+    }
+
+    @Override
+    public W getAcquire(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void setRelease(U obj, W newValue) {
+        updater.lazySet(obj, newValue);
+    }
+
+    @Override
+    public W getOpaque(U obj) {
+        return updater.get(obj);
+    }
+
+    @Override
+    public void setOpaque(U obj, W newValue) {
+        updater.lazySet(obj, newValue);
+    }
+
+    @Override
+    public void lazySet(U obj, W newValue) {
+        updater.lazySet(obj, newValue);
+    }
+
+    @Override
+    public boolean compareAndSet(U obj, W expect, W update) {
+        return updater.compareAndSet(obj, expect, update);
+    }
+
+    @Override
+    public W getAndSet(U obj, W newValue) {
+        return updater.getAndSet(obj, newValue);
+    }
+}
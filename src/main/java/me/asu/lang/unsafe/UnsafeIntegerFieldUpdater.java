@@ -9,7 +9,7 @@ import sun.misc.Unsafe;
  *
  * @author jiachun.fjc
  */
-public class UnsafeIntegerFieldUpdater<U> {
+public class UnsafeIntegerFieldUpdater<U> implements IntegerFieldUpdater<U> {
     private final long offset;
     private final Unsafe unsafe;
 
@@ -22,11 +22,63 @@ public class UnsafeIntegerFieldUpdater<U> {
         offset = unsafe.objectFieldOffset(field);
     }
 
+    @Override
     public void set(U obj, int newValue) {
         unsafe.putInt(obj, offset, newValue);
     }
 
+    @Override
     public int get(U obj) {
         return unsafe.getInt(obj, offset);
     }
+
+    @Override
+    public int getVolatile(U obj) {
+        return unsafe.getIntVolatile(obj, offset);
+    }
+
+    @Override
+    public void setVolatile(U obj, int newValue) {
+        unsafe.putIntVolatile(obj, offset, newValue);
+    }
+
+    @Override
+    public int getAcquire(U obj) {
+        return unsafe.getIntVolatile(obj, offset);
+    }
+
+    @Override
+    public void setRelease(U obj, int newValue) {
+        unsafe.putOrderedInt(obj, offset, newValue);
+    }
+
+    @Override
+    public int getOpaque(U obj) {
+        return unsafe.getIntVolatile(obj, offset);
+    }
+
+    @Override
+    public void setOpaque(U obj, int newValue) {
+        unsafe.putOrderedInt(obj, offset, newValue);
+    }
+
+    @Override
+    public boolean compareAndSet(U obj, int expect, int update) {
+        return unsafe.compareAndSwapInt(obj, offset, expect, update);
+    }
+
+    @Override
+    public void lazySet(U obj, int newValue) {
+        unsafe.putOrderedInt(obj, offset, newValue);
+    }
+
+    @Override
+    public int getAndSet(U obj, int newValue) {
+        return unsafe.getAndSetInt(obj, offset, newValue);
+    }
+
+    @Override
+    public int getAndAdd(U obj, int delta) {
+        return unsafe.getAndAddInt(obj, offset, delta);
+    }
 }
@@ -9,7 +9,7 @@ import sun.misc.Unsafe;
  *
  * @author jiachun.fjc
  */
-public class UnsafeLongFieldUpdater<U> {
+public class UnsafeLongFieldUpdater<U> implements LongFieldUpdater<U> {
     private final long offset;
     private final Unsafe unsafe;
 
@@ -22,11 +22,63 @@ public class UnsafeLongFieldUpdater<U> {
         offset = unsafe.objectFieldOffset(field);
     }
 
+    @Override
     public void set(U obj, long newValue) {
         unsafe.putLong(obj, offset, newValue);
     }
 
+    @Override
     public long get(U obj) {
         return unsafe.getLong(obj, offset);
     }
+
+    @Override
+    public long getVolatile(U obj) {
+        return unsafe.getLongVolatile(obj, offset);
+    }
+
+    @Override
+    public void setVolatile(U obj, long newValue) {
+        unsafe.putLongVolatile(obj, offset, newValue);
+    }
+
+    @Override
+    public long getAcquire(U obj) {
+        return unsafe.getLongVolatile(obj, offset);
+    }
+
+    @Override
+    public void setRelease(U obj, long newValue) {
+        unsafe.putOrderedLong(obj, offset, newValue);
+    }
+
+    @Override
+    public long getOpaque(U obj) {
+        return unsafe.getLongVolatile(obj, offset);
+    }
+
+    @Override
+    public void setOpaque(U obj, long newValue) {
+        unsafe.putOrderedLong(obj, offset, newValue);
+    }
+
+    @Override
+    public boolean compareAndSet(U obj, long expect, long update) {
+        return unsafe.compareAndSwapLong(obj, offset, expect, update);
+    }
+
+    @Override
+    public void lazySet(U obj, long newValue) {
+        unsafe.putOrderedLong(obj, offset, newValue);
+    }
+
+    @Override
+    public long getAndSet(U obj, long newValue) {
+        return unsafe.getAndSetLong(obj, offset, newValue);
+    }
+
+    @Override
+    public long getAndAdd(U obj, long delta) {
+        return unsafe.getAndAddLong(obj, offset, delta);
+    }
 }
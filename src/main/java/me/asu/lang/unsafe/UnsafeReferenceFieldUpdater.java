@@ -10,7 +10,7 @@ import sun.misc.Unsafe;
  * @author jiachun.fjc
  */
 @SuppressWarnings("unchecked")
-public final class UnsafeReferenceFieldUpdater<U, W> {
+public final class UnsafeReferenceFieldUpdater<U, W> implements ReferenceFieldUpdater<U, W> {
     private final long offset;
     private final Unsafe unsafe;
 
@@ -23,11 +23,58 @@ public final class UnsafeReferenceFieldUpdater<U, W> {
         offset = unsafe.objectFieldOffset(field);
     }
 
+    @Override
     public void set(U obj, W newValue) {
         unsafe.putObject(obj, offset, newValue);
     }
 
+    @Override
     public W get(U obj) {
         return (W) unsafe.getObject(obj, offset);
     }
+
+    @Override
+    public W getVolatile(U obj) {
+        return (W) unsafe.getObjectVolatile(obj, offset);
+    }
+
+    @Override
+    public void setVolatile(U obj, W newValue) {
+        unsafe.putObjectVolatile(obj, offset, newValue);
+    }
+
+    @Override
+    public W getAcquire(U obj) {
+        return (W) unsafe.getObjectVolatile(obj, offset);
+    }
+
+    @Override
+    public void setRelease(U obj, W newValue) {
+        unsafe.putOrderedObject(obj, offset, newValue);
+    }
+
+    @Override
+    public W getOpaque(U obj) {
+        return (W) unsafe.getObjectVolatile(obj, offset);
+    }
+
+    @Override
+    public void setOpaque(U obj, W newValue) {
+        unsafe.putOrderedObject(obj, offset, newValue);
+    }
+
+    @Override
+    public boolean compareAndSet(U obj, W expect, W update) {
+        return unsafe.compareAndSwapObject(obj, offset, expect, update);
+    }
+
+    @Override
+    public void lazySet(U obj, W newValue) {
+        unsafe.putOrderedObject(obj, offset, newValue);
+    }
+
+    @Override
+    public W getAndSet(U obj, W newValue) {
+        return (W) unsafe.getAndSetObject(obj, offset, newValue);
+    }
 }
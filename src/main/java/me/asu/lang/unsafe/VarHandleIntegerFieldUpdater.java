@@ -0,0 +1,144 @@
+package me.asu.lang.unsafe;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * {@link IntegerFieldUpdater} backed by a {@code java.lang.invoke.VarHandle}, see {@link VarHandles}.
+ */
+final class VarHandleIntegerFieldUpdater<U> implements IntegerFieldUpdater<U> {
+
+    private final MethodHandle get;
+    private final MethodHandle set;
+    private final MethodHandle getVolatile;
+    private final MethodHandle setVolatile;
+    private final MethodHandle getAcquire;
+    private final MethodHandle setRelease;
+    private final MethodHandle getOpaque;
+    private final MethodHandle setOpaque;
+    private final MethodHandle compareAndSet;
+    private final MethodHandle getAndSet;
+    private final MethodHandle getAndAdd;
+
+    VarHandleIntegerFieldUpdater(MethodHandles.Lookup lookup, Class<? super U> tClass, String fieldName)
+            throws Throwable {
+        MethodHandle[] mhs = VarHandles.accessors(lookup, tClass, fieldName, int.class,
+                "GET", "SET", "GET_VOLATILE", "SET_VOLATILE", "GET_ACQUIRE", "SET_RELEASE",
+                "GET_OPAQUE", "SET_OPAQUE", "COMPARE_AND_SET", "GET_AND_SET", "GET_AND_ADD");
+        get = mhs[0];
+        set = mhs[1];
+        getVolatile = mhs[2];
+        setVolatile = mhs[3];
+        getAcquire = mhs[4];
+        setRelease = mhs[5];
+        getOpaque = mhs[6];
+        setOpaque = mhs[7];
+        compareAndSet = mhs[8];
+        getAndSet = mhs[9];
+        getAndAdd = mhs[10];
+    }
+
+    @Override
+    public int get(U obj) {
+        try {
+            return (int) get.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void set(U obj, int newValue) {
+        try {
+            set.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public int getVolatile(U obj) {
+        try {
+            return (int) getVolatile.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void setVolatile(U obj, int newValue) {
+        try {
+            setVolatile.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public int getAcquire(U obj) {
+        try {
+            return (int) getAcquire.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void setRelease(U obj, int newValue) {
+        try {
+            setRelease.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public int getOpaque(U obj) {
+        try {
+            return (int) getOpaque.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void setOpaque(U obj, int newValue) {
+        try {
+            setOpaque.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void lazySet(U obj, int newValue) {
+        setRelease(obj, newValue);
+    }
+
+    @Override
+    public boolean compareAndSet(U obj, int expect, int update) {
+        try {
+            return (boolean) compareAndSet.invokeExact((Object) obj, expect, update);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public int getAndSet(U obj, int newValue) {
+        try {
+            return (int) getAndSet.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public int getAndAdd(U obj, int delta) {
+        try {
+            return (int) getAndAdd.invokeExact((Object) obj, delta);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+}
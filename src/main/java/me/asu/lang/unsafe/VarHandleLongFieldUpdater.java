@@ -0,0 +1,144 @@
+package me.asu.lang.unsafe;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * {@link LongFieldUpdater} backed by a {@code java.lang.invoke.VarHandle}, see {@link VarHandles}.
+ */
+final class VarHandleLongFieldUpdater<U> implements LongFieldUpdater<U> {
+
+    private final MethodHandle get;
+    private final MethodHandle set;
+    private final MethodHandle getVolatile;
+    private final MethodHandle setVolatile;
+    private final MethodHandle getAcquire;
+    private final MethodHandle setRelease;
+    private final MethodHandle getOpaque;
+    private final MethodHandle setOpaque;
+    private final MethodHandle compareAndSet;
+    private final MethodHandle getAndSet;
+    private final MethodHandle getAndAdd;
+
+    VarHandleLongFieldUpdater(MethodHandles.Lookup lookup, Class<? super U> tClass, String fieldName)
+            throws Throwable {
+        MethodHandle[] mhs = VarHandles.accessors(lookup, tClass, fieldName, long.class,
+                "GET", "SET", "GET_VOLATILE", "SET_VOLATILE", "GET_ACQUIRE", "SET_RELEASE",
+                "GET_OPAQUE", "SET_OPAQUE", "COMPARE_AND_SET", "GET_AND_SET", "GET_AND_ADD");
+        get = mhs[0];
+        set = mhs[1];
+        getVolatile = mhs[2];
+        setVolatile = mhs[3];
+        getAcquire = mhs[4];
+        setRelease = mhs[5];
+        getOpaque = mhs[6];
+        setOpaque = mhs[7];
+        compareAndSet = mhs[8];
+        getAndSet = mhs[9];
+        getAndAdd = mhs[10];
+    }
+
+    @Override
+    public long get(U obj) {
+        try {
+            return (long) get.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void set(U obj, long newValue) {
+        try {
+            set.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public long getVolatile(U obj) {
+        try {
+            return (long) getVolatile.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void setVolatile(U obj, long newValue) {
+        try {
+            setVolatile.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public long getAcquire(U obj) {
+        try {
+            return (long) getAcquire.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void setRelease(U obj, long newValue) {
+        try {
+            setRelease.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public long getOpaque(U obj) {
+        try {
+            return (long) getOpaque.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void setOpaque(U obj, long newValue) {
+        try {
+            setOpaque.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void lazySet(U obj, long newValue) {
+        setRelease(obj, newValue);
+    }
+
+    @Override
+    public boolean compareAndSet(U obj, long expect, long update) {
+        try {
+            return (boolean) compareAndSet.invokeExact((Object) obj, expect, update);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public long getAndSet(U obj, long newValue) {
+        try {
+            return (long) getAndSet.invokeExact((Object) obj, newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public long getAndAdd(U obj, long delta) {
+        try {
+            return (long) getAndAdd.invokeExact((Object) obj, delta);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package me.asu.lang.unsafe;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * {@link ReferenceFieldUpdater} backed by a {@code java.lang.invoke.VarHandle}, see {@link VarHandles}.
+ */
+@SuppressWarnings("unchecked")
+final class VarHandleReferenceFieldUpdater<U, W> implements ReferenceFieldUpdater<U, W> {
+
+    private final MethodHandle get;
+    private final MethodHandle set;
+    private final MethodHandle getVolatile;
+    private final MethodHandle setVolatile;
+    private final MethodHandle getAcquire;
+    private final MethodHandle setRelease;
+    private final MethodHandle getOpaque;
+    private final MethodHandle setOpaque;
+    private final MethodHandle compareAndSet;
+    private final MethodHandle getAndSet;
+
+    VarHandleReferenceFieldUpdater(MethodHandles.Lookup lookup, Class<? super U> tClass, String fieldName)
+            throws Throwable {
+        MethodHandle[] mhs = VarHandles.accessors(lookup, tClass, fieldName, null,
+                "GET", "SET", "GET_VOLATILE", "SET_VOLATILE", "GET_ACQUIRE", "SET_RELEASE",
+                "GET_OPAQUE", "SET_OPAQUE", "COMPARE_AND_SET", "GET_AND_SET");
+        get = mhs[0];
+        set = mhs[1];
+        getVolatile = mhs[2];
+        setVolatile = mhs[3];
+        getAcquire = mhs[4];
+        setRelease = mhs[5];
+        getOpaque = mhs[6];
+        setOpaque = mhs[7];
+        compareAndSet = mhs[8];
+        getAndSet = mhs[9];
+    }
+
+    @Override
+    public W get(U obj) {
+        try {
+            return (W) (Object) get.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void set(U obj, W newValue) {
+        try {
+            set.invokeExact((Object) obj, (Object) newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public W getVolatile(U obj) {
+        try {
+            return (W) (Object) getVolatile.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void setVolatile(U obj, W newValue) {
+        try {
+            setVolatile.invokeExact((Object) obj, (Object) newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public W getAcquire(U obj) {
+        try {
+            return (W) (Object) getAcquire.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void setRelease(U obj, W newValue) {
+        try {
+            setRelease.invokeExact((Object) obj, (Object) newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public W getOpaque(U obj) {
+        try {
+            return (W) (Object) getOpaque.invokeExact((Object) obj);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void setOpaque(U obj, W newValue) {
+        try {
+            setOpaque.invokeExact((Object) obj, (Object) newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public void lazySet(U obj, W newValue) {
+        setRelease(obj, newValue);
+    }
+
+    @Override
+    public boolean compareAndSet(U obj, W expect, W update) {
+        try {
+            return (boolean) compareAndSet.invokeExact((Object) obj, (Object) expect, (Object) update);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+
+    @Override
+    public W getAndSet(U obj, W newValue) {
+        try {
+            return (W) (Object) getAndSet.invokeExact((Object) obj, (Object) newValue);
+        } catch (Throwable t) {
+            throw VarHandles.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package me.asu.lang.unsafe;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reflective access to {@code java.lang.invoke.VarHandle} (JDK 9+), so this module still
+ * compiles and runs on JDK 8.
+ * <p>
+ * Each access mode is turned into a {@link MethodHandle} with
+ * {@code VarHandle.toMethodHandle(AccessMode)}, and its type is erased so the receiver and
+ * reference values are {@code Object}; callers use {@code invokeExact} with matching casts.
+ */
+final class VarHandles {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VarHandles.class);
+
+    private static final Method   PRIVATE_LOOKUP_IN;
+    private static final Method   FIND_VAR_HANDLE;
+    private static final Method   TO_METHOD_HANDLE;
+    private static final Class<?> ACCESS_MODE;
+
+    static {
+        Method privateLookupIn = null;
+        Method findVarHandle = null;
+        Method toMethodHandle = null;
+        Class<?> accessMode = null;
+        try {
+            privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class,
+                    MethodHandles.Lookup.class);
+            findVarHandle = MethodHandles.Lookup.class.getMethod("findVarHandle", Class.class,
+                    String.class, Class.class);
+            accessMode = Class.forName("java.lang.invoke.VarHandle$AccessMode");
+            toMethodHandle = Class.forName("java.lang.invoke.VarHandle")
+                                  .getMethod("toMethodHandle", accessMode);
+        } catch (Throwable t) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("java.lang.invoke.VarHandle: unavailable, {}.", t.toString());
+            }
+            privateLookupIn = null;
+        }
+        PRIVATE_LOOKUP_IN = privateLookupIn;
+        FIND_VAR_HANDLE = findVarHandle;
+        TO_METHOD_HANDLE = toMethodHandle;
+        ACCESS_MODE = accessMode;
+    }
+
+    private VarHandles() {
+    }
+
+    static boolean isAvailable() {
+        return PRIVATE_LOOKUP_IN != null;
+    }
+
+    /**
+     * Returns one erased method handle per access mode of {@code tClass.fieldName}.
+     *
+     * @param caller    the caller's lookup, or null to use this class.
+     * @param fieldType the type of the field, or null to read it from the field.
+     * @param modes     names of {@code VarHandle.AccessMode} constants.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static MethodHandle[] accessors(MethodHandles.Lookup caller, Class<?> tClass, String fieldName,
+            Class<?> fieldType, String... modes) throws Throwable {
+        if (!isAvailable()) {
+            throw new UnsupportedOperationException("java.lang.invoke.VarHandle");
+        }
+        if (fieldType == null) {
+            fieldType = tClass.getDeclaredField(fieldName).getType();
+        }
+        Object lookup = PRIVATE_LOOKUP_IN.invoke(null, tClass,
+                caller == null ? MethodHandles.lookup() : caller);
+        Object varHandle = FIND_VAR_HANDLE.invoke(lookup, tClass, fieldName, fieldType);
+        MethodHandle[] re = new MethodHandle[modes.length];
+        for (int i = 0; i < modes.length; i++) {
+            Object mode = Enum.valueOf((Class) ACCESS_MODE, modes[i]);
+            MethodHandle mh = (MethodHandle) TO_METHOD_HANDLE.invoke(varHandle, mode);
+            re[i] = mh.asType(mh.type().erase());
+        }
+        return re;
+    }
+
+    static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new RuntimeException(t);
+    }
+}
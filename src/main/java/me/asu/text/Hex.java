@@ -9,7 +9,9 @@ package me.asu.text;
  * @since 2017-09-11 17:44
  */
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 
 public class Hex {
 
@@ -18,8 +20,37 @@ public class Hex {
             '9', 'a', 'b', 'c', 'd', 'e', 'f'};
     private static final char[] DIGITS_UPPER         = {'0', '1', '2', '3', '4', '5', '6', '7', '8',
             '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+    /**
+     * 每个字节的两个十六进制字符，下标 (b &amp; 0xFF) &lt;&lt; 1，一次查表得到两位，不再移位、掩码两次
+     */
+    private static final char[] PAIRS_LOWER = pairs(DIGITS_LOWER);
+    private static final char[] PAIRS_UPPER = pairs(DIGITS_UPPER);
+
+    /**
+     * 字符 -> 数值，非十六进制字符为 -1
+     */
+    private static final byte[] DIGIT_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(DIGIT_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            DIGIT_VALUES[DIGITS_LOWER[i]] = (byte) i;
+            DIGIT_VALUES[DIGITS_UPPER[i]] = (byte) i;
+        }
+    }
+
     private final String charsetName;
 
+    private static char[] pairs(char[] digits) {
+        char[] pairs = new char[512];
+        for (int b = 0; b < 256; b++) {
+            pairs[b << 1] = digits[b >>> 4];
+            pairs[(b << 1) + 1] = digits[b & 0xF];
+        }
+        return pairs;
+    }
+
     public Hex() {
         this.charsetName = "UTF-8";
     }
@@ -47,9 +78,9 @@ public class Hex {
 
         int i = 0;
         for (int j = 0; j < len; ++i) {
-            int f = toDigit(data[j], j) << 4;
+            int f = digit(data[j], j) << 4;
             ++j;
-            f |= toDigit(data[j], j);
+            f |= digit(data[j], j);
             ++j;
             out[i] = (byte) (f & 0xFF);
         }
@@ -57,6 +88,41 @@ public class Hex {
         return out;
     }
 
+    /**
+     * Decodes the hex chars {@code src[start, end)} into {@code dst} starting at {@code dstOff},
+     * without copying the range into a new String or char[].
+     *
+     * @return the index after the last written byte.
+     * @throws IllegalStateException if the range has an odd length or a non-hex char.
+     */
+    public static int decodeHex(CharSequence src, int start, int end, byte[] dst, int dstOff) {
+        if (start < 0 || end > src.length() || start > end) {
+            throw new IndexOutOfBoundsException(
+                    "start: " + start + ", end: " + end + ", length: " + src.length());
+        }
+        if (((end - start) & 0x1) != 0) {
+            throw new IllegalStateException("Odd number of characters.");
+        }
+        if (dstOff < 0 || dstOff + ((end - start) >> 1) > dst.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        for (int j = start; j < end; j += 2) {
+            dst[dstOff++] = (byte) ((digit(src.charAt(j), j) << 4) | digit(src.charAt(j + 1), j + 1));
+        }
+        return dstOff;
+    }
+
+    /**
+     * Table-driven {@link #toDigit(char, int)}.
+     */
+    private static int digit(char ch, int index) {
+        int digit = ch < 128 ? DIGIT_VALUES[ch] : -1;
+        if (digit == -1) {
+            return toDigit(ch, index);
+        }
+        return digit;
+    }
+
     public String getCharsetName() {
         return this.charsetName;
     }
@@ -97,12 +163,12 @@ public class Hex {
     }
 
     public static String encodeHexString(byte[] data, int start, int end) {
-        if (start < 0 || end > data.length) {
+        if (start < 0 || end > data.length || start > end) {
             throw new IndexOutOfBoundsException();
         }
-        byte[] newData = new byte[end - start];
-        System.arraycopy(data, start, newData, start, (end - start));
-        return encodeHexString(newData);
+        char[] out = new char[(end - start) << 1];
+        encodeHex(data, start, end - start, out, 0, true);
+        return new String(out);
     }
 
     public static String encodeHexString(byte[] data) {
@@ -114,7 +180,83 @@ public class Hex {
     }
 
     public static char[] encodeHex(byte[] data, boolean toLowerCase) {
-        return encodeHex(data, (toLowerCase) ? DIGITS_LOWER : DIGITS_UPPER);
+        char[] out = new char[data.length << 1];
+        encodeHex(data, 0, data.length, out, 0, toLowerCase);
+        return out;
+    }
+
+    /**
+     * Writes the hex chars of {@code src[off, off + len)} into {@code dst} starting at
+     * {@code dstOff}.
+     *
+     * @return the index after the last written char.
+     */
+    public static int encodeHex(byte[] src, int off, int len, char[] dst, int dstOff,
+            boolean toLowerCase) {
+        checkRange(src.length, off, len);
+        checkRange(dst.length, dstOff, len << 1);
+        char[] pairs = toLowerCase ? PAIRS_LOWER : PAIRS_UPPER;
+        for (int i = off, end = off + len; i < end; i++) {
+            int p = (src[i] & 0xFF) << 1;
+            dst[dstOff++] = pairs[p];
+            dst[dstOff++] = pairs[p + 1];
+        }
+        return dstOff;
+    }
+
+    /**
+     * Writes the hex chars of {@code src[off, off + len)} as ASCII bytes into {@code dst}
+     * starting at {@code dstOff}.
+     *
+     * @return the index after the last written byte.
+     */
+    public static int encodeHex(byte[] src, int off, int len, byte[] dst, int dstOff,
+            boolean toLowerCase) {
+        checkRange(src.length, off, len);
+        checkRange(dst.length, dstOff, len << 1);
+        char[] pairs = toLowerCase ? PAIRS_LOWER : PAIRS_UPPER;
+        for (int i = off, end = off + len; i < end; i++) {
+            int p = (src[i] & 0xFF) << 1;
+            dst[dstOff++] = (byte) pairs[p];
+            dst[dstOff++] = (byte) pairs[p + 1];
+        }
+        return dstOff;
+    }
+
+    /**
+     * Appends the hex chars of {@code src[off, off + len)} to {@code sb}.
+     */
+    public static StringBuilder appendHex(byte[] src, int off, int len, StringBuilder sb,
+            boolean toLowerCase) {
+        checkRange(src.length, off, len);
+        sb.ensureCapacity(sb.length() + (len << 1));
+        char[] pairs = toLowerCase ? PAIRS_LOWER : PAIRS_UPPER;
+        for (int i = off, end = off + len; i < end; i++) {
+            int p = (src[i] & 0xFF) << 1;
+            sb.append(pairs[p]).append(pairs[p + 1]);
+        }
+        return sb;
+    }
+
+    /**
+     * Appends the hex chars of {@code src[off, off + len)} to {@code out}.
+     */
+    public static <A extends Appendable> A appendHex(byte[] src, int off, int len, A out,
+            boolean toLowerCase) throws IOException {
+        checkRange(src.length, off, len);
+        char[] pairs = toLowerCase ? PAIRS_LOWER : PAIRS_UPPER;
+        for (int i = off, end = off + len; i < end; i++) {
+            int p = (src[i] & 0xFF) << 1;
+            out.append(pairs[p]).append(pairs[p + 1]);
+        }
+        return out;
+    }
+
+    private static void checkRange(int length, int off, int len) {
+        if (off < 0 || len < 0 || off > length - len) {
+            throw new IndexOutOfBoundsException(
+                    "off: " + off + ", len: " + len + ", length: " + length);
+        }
     }
 
     protected static char[] encodeHex(byte[] data, char[] toDigits) {
@@ -129,6 +271,36 @@ public class Hex {
         return out;
     }
 
+    /**
+     * Writes the 16 lowercase hex digits of {@code value} (big-endian) into {@code dst}
+     * starting at {@code off}, the same text as
+     * {@code encodeHexString(Bytes.toBytes(value))} without allocating.
+     *
+     * @return the index after the last written char.
+     */
+    public static int encodeHex(long value, char[] dst, int off) {
+        if (off < 0 || off + 16 > dst.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            int p = ((int) (value >>> shift) & 0xFF) << 1;
+            dst[off++] = PAIRS_LOWER[p];
+            dst[off++] = PAIRS_LOWER[p + 1];
+        }
+        return off;
+    }
+
+    /**
+     * Appends the 16 lowercase hex digits of {@code value} (big-endian) to {@code sb}.
+     */
+    public static StringBuilder encodeHex(long value, StringBuilder sb) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            int p = ((int) (value >>> shift) & 0xFF) << 1;
+            sb.append(PAIRS_LOWER[p]).append(PAIRS_LOWER[p + 1]);
+        }
+        return sb;
+    }
+
     public Object encode(Object object) {
         try {
             byte[] byteArray = (object instanceof String) ? ((String) object)
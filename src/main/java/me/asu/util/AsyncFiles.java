@@ -0,0 +1,408 @@
+package me.asu.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link Files}、{@link Streams} 常用操作的异步版本，结果以 {@link CompletableFuture} 返回，调用线程不阻塞。
+ * <p>
+ * 文件读写基于 {@link AsynchronousFileChannel}，读写分块进行，每块完成后在回调中发起下一块；
+ * 通道的 I/O 和回调都在指定的 {@link ExecutorService} 中执行。没有指定时使用默认执行器：
+ * JDK 21+ 为每个任务一个虚拟线程，否则为固定大小的守护线程池，可以用 {@link #setDefaultExecutor(ExecutorService)} 替换。
+ * <p>
+ * 出错时 future 以原始的 {@link IOException} 异常完成，文件通道总会被关闭。
+ */
+public abstract class AsyncFiles {
+
+    /**
+     * 拷贝时每块的大小
+     */
+    private static final int COPY_BUF_SIZE = 256 * 1024;
+
+    private static final Set<OpenOption> READ = Collections.<OpenOption>singleton(StandardOpenOption.READ);
+
+    private static final Set<OpenOption> WRITE = Collections.<OpenOption>unmodifiableSet(
+            EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                       StandardOpenOption.TRUNCATE_EXISTING));
+
+    private static final Set<OpenOption> APPEND = Collections.<OpenOption>unmodifiableSet(
+            EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+
+    private static volatile ExecutorService defaultExecutor;
+
+    /**
+     * @return 默认执行器，第一次调用时创建
+     */
+    public static ExecutorService getDefaultExecutor() {
+        ExecutorService executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (AsyncFiles.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    executor = defaultExecutor = newDefaultExecutor();
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 替换默认执行器，原来的执行器不会被关闭
+     *
+     * @param executor 执行器
+     */
+    public static void setDefaultExecutor(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        defaultExecutor = executor;
+    }
+
+    /**
+     * JDK 21+ 用虚拟线程，否则用固定大小的守护线程池，空闲线程会退出
+     */
+    static ExecutorService newDefaultExecutor() {
+        try {
+            Method m = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (Exception e) {
+            // JDK 21 以前没有这个方法，19、20 未开启预览时调用会失败
+        }
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<Runnable>(),
+                                                             new NamedThreadFactory("AsyncFiles", true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 读取文件全部字节，文件在打开后变长的部分不会被读取
+     *
+     * @param path 文件
+     * @return 文件的字节内容
+     */
+    public static CompletableFuture<byte[]> readBytes(Path path) {
+        return readBytes(path, getDefaultExecutor());
+    }
+
+    public static CompletableFuture<byte[]> readBytes(Path path, ExecutorService executor) {
+        final CompletableFuture<byte[]> re = new CompletableFuture<byte[]>();
+        final AsynchronousFileChannel ch;
+        final long size;
+        try {
+            ch = AsynchronousFileChannel.open(path, READ, executor);
+        } catch (IOException e) {
+            re.completeExceptionally(e);
+            return re;
+        }
+        try {
+            size = ch.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large: " + path + ", size: " + size);
+            }
+        } catch (IOException e) {
+            fail(ch, re, e);
+            return re;
+        }
+        final ByteBuffer buf = ByteBuffer.allocate((int) size);
+        if (size == 0) {
+            complete(ch, re, buf.array());
+            return re;
+        }
+        ch.read(buf, 0, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer n, Void attachment) {
+                if (n < 0 || !buf.hasRemaining()) {
+                    // 文件在读取过程中变短时只返回读到的部分
+                    byte[] bytes = buf.hasRemaining() ?
+                                   java.util.Arrays.copyOf(buf.array(), buf.position()) : buf.array();
+                    complete(ch, re, bytes);
+                    return;
+                }
+                ch.read(buf, buf.position(), null, this);
+            }
+
+            @Override
+            public void failed(Throwable t, Void attachment) {
+                fail(ch, re, t);
+            }
+        });
+        return re;
+    }
+
+    /**
+     * 以 UTF-8 读取文件全部内容
+     */
+    public static CompletableFuture<String> read(Path path) {
+        return read(path, StandardCharsets.UTF_8, getDefaultExecutor());
+    }
+
+    public static CompletableFuture<String> read(Path path, final Charset charset, ExecutorService executor) {
+        return readBytes(path, executor).thenApply(new Function<byte[], String>() {
+            @Override
+            public String apply(byte[] bytes) {
+                return new String(bytes, charset);
+            }
+        });
+    }
+
+    /**
+     * 写入文件，文件不存在时创建，存在时覆盖
+     *
+     * @param path  文件
+     * @param bytes 内容
+     * @return 写入的字节数
+     */
+    public static CompletableFuture<Long> write(Path path, byte[] bytes) {
+        return write(path, ByteBuffer.wrap(bytes), getDefaultExecutor());
+    }
+
+    /**
+     * 写入文件，文件不存在时创建，存在时覆盖
+     *
+     * @param path     文件
+     * @param src      内容，从 position 到 limit，完成前不能修改
+     * @param executor 执行器
+     * @return 写入的字节数
+     */
+    public static CompletableFuture<Long> write(Path path, ByteBuffer src, ExecutorService executor) {
+        return write(path, src, WRITE, false, executor);
+    }
+
+    /**
+     * 以 UTF-8 写入文本
+     */
+    public static CompletableFuture<Long> write(Path path, CharSequence text) {
+        return write(path, ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8)),
+                     getDefaultExecutor());
+    }
+
+    /**
+     * 追加到文件末尾，文件不存在时创建。
+     * <p>
+     * {@link AsynchronousFileChannel} 不支持 APPEND 模式，写入位置是打开时的文件大小，
+     * 同一个文件的并发追加需要调用方自己串行。
+     *
+     * @param path  文件
+     * @param bytes 内容
+     * @return 写入的字节数
+     */
+    public static CompletableFuture<Long> append(Path path, byte[] bytes) {
+        return append(path, ByteBuffer.wrap(bytes), getDefaultExecutor());
+    }
+
+    public static CompletableFuture<Long> append(Path path, ByteBuffer src, ExecutorService executor) {
+        return write(path, src, APPEND, true, executor);
+    }
+
+    private static CompletableFuture<Long> write(Path path, final ByteBuffer src, Set<OpenOption> options,
+                                                 boolean append, ExecutorService executor) {
+        final CompletableFuture<Long> re = new CompletableFuture<Long>();
+        final AsynchronousFileChannel ch;
+        final long start;
+        try {
+            ch = AsynchronousFileChannel.open(path, options, executor);
+        } catch (IOException e) {
+            re.completeExceptionally(e);
+            return re;
+        }
+        try {
+            start = append ? ch.size() : 0;
+        } catch (IOException e) {
+            fail(ch, re, e);
+            return re;
+        }
+        if (!src.hasRemaining()) {
+            complete(ch, re, 0L);
+            return re;
+        }
+        ch.write(src, start, null, new CompletionHandler<Integer, Void>() {
+            private long position = start;
+
+            @Override
+            public void completed(Integer n, Void attachment) {
+                position += n;
+                if (src.hasRemaining()) {
+                    ch.write(src, position, null, this);
+                } else {
+                    complete(ch, re, position - start);
+                }
+            }
+
+            @Override
+            public void failed(Throwable t, Void attachment) {
+                fail(ch, re, t);
+            }
+        });
+        return re;
+    }
+
+    /**
+     * 拷贝文件，目标存在时覆盖。用 {@link BufferPool#direct()} 中的缓冲区分块读写
+     *
+     * @param src 源文件
+     * @param dst 目标文件
+     * @return 拷贝的字节数
+     */
+    public static CompletableFuture<Long> copy(Path src, Path dst) {
+        return copy(src, dst, getDefaultExecutor());
+    }
+
+    public static CompletableFuture<Long> copy(Path src, Path dst, ExecutorService executor) {
+        final CompletableFuture<Long> re = new CompletableFuture<Long>();
+        final AsynchronousFileChannel in;
+        final AsynchronousFileChannel out;
+        try {
+            in = AsynchronousFileChannel.open(src, READ, executor);
+        } catch (IOException e) {
+            re.completeExceptionally(e);
+            return re;
+        }
+        try {
+            out = AsynchronousFileChannel.open(dst, WRITE, executor);
+        } catch (IOException e) {
+            fail(in, re, e);
+            return re;
+        }
+        new Copier(in, out, re).read();
+        return re;
+    }
+
+    /**
+     * 交替读写，一块写完后再读下一块
+     */
+    private static final class Copier implements CompletionHandler<Integer, Void> {
+
+        private final AsynchronousFileChannel in;
+        private final AsynchronousFileChannel out;
+        private final CompletableFuture<Long> re;
+        private final ByteBuffer              buf;
+
+        private long    position;
+        private boolean writing;
+
+        Copier(AsynchronousFileChannel in, AsynchronousFileChannel out, CompletableFuture<Long> re) {
+            this.in = in;
+            this.out = out;
+            this.re = re;
+            this.buf = BufferPool.direct().acquire(COPY_BUF_SIZE);
+        }
+
+        void read() {
+            writing = false;
+            buf.clear();
+            in.read(buf, position, null, this);
+        }
+
+        @Override
+        public void completed(Integer n, Void attachment) {
+            if (writing) {
+                position += n;
+                if (buf.hasRemaining()) {
+                    out.write(buf, position, null, this);
+                } else {
+                    read();
+                }
+                return;
+            }
+            if (n < 0) {
+                BufferPool.direct().release(buf);
+                Streams.safeClose(in);
+                complete(out, re, position);
+                return;
+            }
+            buf.flip();
+            writing = true;
+            out.write(buf, position, null, this);
+        }
+
+        @Override
+        public void failed(Throwable t, Void attachment) {
+            BufferPool.direct().release(buf);
+            Streams.safeClose(in);
+            fail(out, re, t);
+        }
+    }
+
+    /**
+     * 在执行器中把输入流写入输出流，并关闭输入/出流
+     *
+     * @see Streams#writeAndClose(OutputStream, InputStream)
+     */
+    public static CompletableFuture<Long> writeAndClose(final OutputStream ops, final InputStream ins) {
+        return CompletableFuture.supplyAsync(new Supplier<Long>() {
+            @Override
+            public Long get() {
+                return Streams.writeAndClose(ops, ins);
+            }
+        }, getDefaultExecutor());
+    }
+
+    /**
+     * 在执行器中读取输入流所有的字节，并关闭输入流
+     *
+     * @see Streams#readBytesAndClose(InputStream)
+     */
+    public static CompletableFuture<byte[]> readBytesAndClose(final InputStream ins) {
+        return CompletableFuture.supplyAsync(new Supplier<byte[]>() {
+            @Override
+            public byte[] get() {
+                return Streams.readBytesAndClose(ins);
+            }
+        }, getDefaultExecutor());
+    }
+
+    /**
+     * 在执行器中读取文本流全部内容，并关闭文本流
+     *
+     * @see Streams#readAndClose(Reader)
+     */
+    public static CompletableFuture<String> readAndClose(final Reader reader) {
+        return CompletableFuture.supplyAsync(new Supplier<String>() {
+            @Override
+            public String get() {
+                return Streams.readAndClose(reader);
+            }
+        }, getDefaultExecutor());
+    }
+
+    /**
+     * 关闭通道后成功完成，关闭失败时以异常完成
+     */
+    private static <T> void complete(AsynchronousFileChannel ch, CompletableFuture<T> re, T value) {
+        try {
+            ch.close();
+        } catch (IOException e) {
+            re.completeExceptionally(e);
+            return;
+        }
+        re.complete(value);
+    }
+
+    private static void fail(AsynchronousFileChannel ch, CompletableFuture<?> re, Throwable t) {
+        Streams.safeClose(ch);
+        re.completeExceptionally(t);
+    }
+}
@@ -0,0 +1,264 @@
+package me.asu.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按大小分级复用的缓冲区池，用于 {@link Streams}、{@link Files} 中的临时传输缓冲区。
+ * <p>
+ * 容量按 2 的幂分级，从 {@link #MIN_CAPACITY} 到 {@link #MAX_CAPACITY}；申请的大小向上取整到所在级别，
+ * 超过最大级别的直接分配、归还时丢弃。每一级是一个定长的槽数组，取出和归还都是对槽的 CAS，不加锁，
+ * 可以在一个线程取出、另一个线程归还。池满时归还的缓冲区直接丢弃交给 GC，每级保留的总字节数有上限。
+ * <p>
+ * {@link #heap()} 提供 byte[]，{@link #direct()} 提供直接内存的 {@link ByteBuffer}。
+ * 取出的缓冲区内容是未定义的 (可能是上一次使用留下的数据)，直接缓冲区已 clear()。
+ * 归还后不能再使用，也不能重复归还；只能归还从同一个池取出的缓冲区。
+ * <p>
+ * {@link #hits()}、{@link #misses()}、{@link #outstanding()}、{@link #dropped()} 用于观察命中情况和确定池的大小。
+ *
+ * @param <T> 缓冲区类型
+ */
+public abstract class BufferPool<T> {
+
+    private static final int MIN_SHIFT = 9;
+    private static final int MAX_SHIFT = 20;
+
+    /**
+     * 最小级别 512 B
+     */
+    public static final int MIN_CAPACITY = 1 << MIN_SHIFT;
+
+    /**
+     * 最大级别 1 MiB
+     */
+    public static final int MAX_CAPACITY = 1 << MAX_SHIFT;
+
+    /**
+     * 每一级最多保留的字节数
+     */
+    private static final int BYTES_PER_CLASS = 1 << 20;
+
+    private static final int MIN_SLOTS = 2;
+    private static final int MAX_SLOTS = 32;
+
+    private static final BufferPool<byte[]> HEAP = new HeapBufferPool();
+
+    private static final BufferPool<ByteBuffer> DIRECT = new DirectBufferPool();
+
+    /**
+     * 每一级的槽，null 表示空槽
+     */
+    private final AtomicReferenceArray<T>[] classes;
+
+    private final LongAdder hits        = new LongAdder();
+    private final LongAdder misses      = new LongAdder();
+    private final LongAdder outstanding = new LongAdder();
+    private final LongAdder dropped     = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BufferPool() {
+        classes = new AtomicReferenceArray[MAX_SHIFT - MIN_SHIFT + 1];
+        for (int i = 0; i < classes.length; i++) {
+            int capacity = MIN_CAPACITY << i;
+            int slots = Math.max(MIN_SLOTS, Math.min(MAX_SLOTS, BYTES_PER_CLASS / capacity));
+            classes[i] = new AtomicReferenceArray<T>(slots);
+        }
+    }
+
+    /**
+     * @return 堆内 byte[] 的池
+     */
+    public static BufferPool<byte[]> heap() {
+        return HEAP;
+    }
+
+    /**
+     * @return 直接内存 ByteBuffer 的池
+     */
+    public static BufferPool<ByteBuffer> direct() {
+        return DIRECT;
+    }
+
+    /**
+     * @return 容量所在的级别，超过最大级别返回 -1
+     */
+    private static int sizeClass(int capacity) {
+        if (capacity <= MIN_CAPACITY) {
+            return 0;
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+
+    /**
+     * 每个线程从不同的槽开始找，减少争用
+     */
+    private static int probe(int slots) {
+        long id = Thread.currentThread().getId();
+        return (int) ((id ^ (id >>> 16)) & (slots - 1));
+    }
+
+    /**
+     * 取出一个容量不小于 minCapacity 的缓冲区，用完后必须用 {@link #release(Object)} 归还
+     *
+     * @param minCapacity 最小容量
+     * @return 缓冲区，容量为 minCapacity 向上取整到 2 的幂 (不小于 {@link #MIN_CAPACITY})
+     * @throws IllegalArgumentException minCapacity &lt; 0
+     */
+    public T acquire(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new IllegalArgumentException("minCapacity must >= 0: " + minCapacity);
+        }
+        outstanding.increment();
+        int c = sizeClass(minCapacity);
+        if (c < 0) {
+            misses.increment();
+            return allocate(minCapacity);
+        }
+        AtomicReferenceArray<T> slots = classes[c];
+        int n = slots.length();
+        for (int i = 0, j = probe(n); i < n; i++, j = (j + 1) & (n - 1)) {
+            T buffer = slots.get(j);
+            if (buffer != null && slots.compareAndSet(j, buffer, null)) {
+                hits.increment();
+                return reset(buffer);
+            }
+        }
+        misses.increment();
+        return allocate(MIN_CAPACITY << c);
+    }
+
+    /**
+     * 归还缓冲区，可以接受 null
+     *
+     * @param buffer 从本池取出的缓冲区
+     */
+    public void release(T buffer) {
+        if (buffer == null) {
+            return;
+        }
+        outstanding.decrement();
+        int capacity = capacity(buffer);
+        int c = sizeClass(capacity);
+        if (c < 0 || capacity != MIN_CAPACITY << c) {
+            // 超出最大级别，或不是池中分配的容量
+            return;
+        }
+        AtomicReferenceArray<T> slots = classes[c];
+        int n = slots.length();
+        for (int i = 0, j = probe(n); i < n; i++, j = (j + 1) & (n - 1)) {
+            if (slots.get(j) == null && slots.compareAndSet(j, null, buffer)) {
+                return;
+            }
+        }
+        dropped.increment();
+    }
+
+    abstract T allocate(int capacity);
+
+    abstract int capacity(T buffer);
+
+    abstract T reset(T buffer);
+
+    /**
+     * @return 从池中取到缓冲区的次数
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 池中没有可用缓冲区而新分配的次数，包括超出最大级别的申请
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 已取出尚未归还的缓冲区个数
+     */
+    public long outstanding() {
+        return outstanding.sum();
+    }
+
+    /**
+     * @return 归还时池已满而丢弃的次数
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return 当前池中空闲的缓冲区个数
+     */
+    public int idle() {
+        int idle = 0;
+        for (AtomicReferenceArray<T> slots : classes) {
+            for (int i = 0, n = slots.length(); i < n; i++) {
+                if (slots.get(i) != null) {
+                    idle++;
+                }
+            }
+        }
+        return idle;
+    }
+
+    /**
+     * 丢弃池中所有空闲的缓冲区，统计数据不变
+     */
+    public void clear() {
+        for (AtomicReferenceArray<T> slots : classes) {
+            for (int i = 0, n = slots.length(); i < n; i++) {
+                slots.set(i, null);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[hits=" + hits() + ", misses=" + misses()
+                + ", outstanding=" + outstanding() + ", dropped=" + dropped()
+                + ", idle=" + idle() + "]";
+    }
+
+    private static final class HeapBufferPool extends BufferPool<byte[]> {
+
+        @Override
+        byte[] allocate(int capacity) {
+            return new byte[capacity];
+        }
+
+        @Override
+        int capacity(byte[] buffer) {
+            return buffer.length;
+        }
+
+        @Override
+        byte[] reset(byte[] buffer) {
+            return buffer;
+        }
+    }
+
+    private static final class DirectBufferPool extends BufferPool<ByteBuffer> {
+
+        @Override
+        ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+
+        @Override
+        int capacity(ByteBuffer buffer) {
+            // 堆内的 ByteBuffer 不收
+            return buffer.isDirect() ? buffer.capacity() : -1;
+        }
+
+        @Override
+        ByteBuffer reset(ByteBuffer buffer) {
+            buffer.clear();
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            return buffer;
+        }
+    }
+}
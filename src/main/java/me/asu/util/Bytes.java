@@ -1,13 +1,14 @@
 package me.asu.util;
 
 import java.io.*;
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import me.asu.text.Hex;
 
 public class Bytes {
@@ -85,6 +86,20 @@ public class Bytes {
      */
     public static final byte[] EMPTY_BYTES = new byte[0];
 
+    /**
+     * Bytes {@link #toStringBinary(byte[], int, int)} writes as is, the rest are hex escaped.
+     */
+    private static final boolean[] PRINTABLE = new boolean[256];
+
+    static {
+        for (int ch = 0; ch < PRINTABLE.length; ch++) {
+            PRINTABLE[ch] = (ch >= '0' && ch <= '9')
+                    || (ch >= 'A' && ch <= 'Z')
+                    || (ch >= 'a' && ch <= 'z')
+                    || " `~!@#$%^&*()-_=+[]{}\\|;:'\",.<>/?".indexOf(ch) >= 0;
+        }
+    }
+
     /**
      * Byte array comparator class.
      */
@@ -313,6 +328,390 @@ public class Bytes {
         return offset + SIZEOF_INT;
     }
 
+    // ==============================Varint===========================================
+
+    /**
+     * Zigzag-encode a signed int so that small negative values get small varints.
+     *
+     * @param n signed value
+     * @return unsigned value, -1 becomes 1, 1 becomes 2, etc.
+     */
+    public static int encodeZigZag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    /**
+     * @param n signed value
+     * @return zigzag-encoded value
+     * @see #encodeZigZag(int)
+     */
+    public static long encodeZigZag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    /**
+     * @param n zigzag-encoded value
+     * @return signed value
+     */
+    public static int decodeZigZag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /**
+     * @param n zigzag-encoded value
+     * @return signed value
+     */
+    public static long decodeZigZag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /**
+     * @param n value, treated as unsigned
+     * @return number of bytes the LEB128 varint encoding of <code>n</code> takes, 1 to 5
+     */
+    public static int varIntSize(int n) {
+        return (31 - Integer.numberOfLeadingZeros(n | 1)) / 7 + 1;
+    }
+
+    /**
+     * @param n value, treated as unsigned
+     * @return number of bytes the LEB128 varint encoding of <code>n</code> takes, 1 to 10
+     */
+    public static int varLongSize(long n) {
+        return (63 - Long.numberOfLeadingZeros(n | 1)) / 7 + 1;
+    }
+
+    /**
+     * Write an int as an unsigned LEB128 varint: 7 bits per byte, low bits first,
+     * the high bit set on all bytes but the last. Negative values always take 5 bytes,
+     * zigzag-encode them first if they are common.
+     *
+     * @param bytes  the byte array
+     * @param offset position in the array
+     * @param val    value to write
+     * @return incremented offset
+     */
+    public static int putVarInt(byte[] bytes, int offset, int val) {
+        while ((val & ~0x7F) != 0) {
+            bytes[offset++] = (byte) (val | 0x80);
+            val >>>= 7;
+        }
+        bytes[offset++] = (byte) val;
+        return offset;
+    }
+
+    /**
+     * @param bytes  the byte array
+     * @param offset position in the array
+     * @param val    value to write
+     * @return incremented offset
+     * @see #putVarInt(byte[], int, int)
+     */
+    public static int putVarLong(byte[] bytes, int offset, long val) {
+        while ((val & ~0x7FL) != 0) {
+            bytes[offset++] = (byte) (val | 0x80);
+            val >>>= 7;
+        }
+        bytes[offset++] = (byte) val;
+        return offset;
+    }
+
+    /**
+     * Read a varint written by {@link #putVarInt(byte[], int, int)}. The next value starts at
+     * <code>offset + varIntSize(value)</code>.
+     *
+     * @param bytes  the byte array
+     * @param offset position in the array
+     * @return the value
+     * @throws IllegalArgumentException if the varint is longer than 5 bytes
+     */
+    public static int getVarInt(byte[] bytes, int offset) {
+        int b = bytes[offset];
+        if (b >= 0) {
+            return b;
+        }
+        int result = b & 0x7F;
+        for (int shift = 7; shift < 35; shift += 7) {
+            b = bytes[++offset];
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at offset " + offset);
+    }
+
+    /**
+     * Read a varint written by {@link #putVarLong(byte[], int, long)}. The next value starts at
+     * <code>offset + varLongSize(value)</code>.
+     *
+     * @param bytes  the byte array
+     * @param offset position in the array
+     * @return the value
+     * @throws IllegalArgumentException if the varint is longer than 10 bytes
+     */
+    public static long getVarLong(byte[] bytes, int offset) {
+        long b = bytes[offset];
+        if (b >= 0) {
+            return b;
+        }
+        long result = b & 0x7F;
+        for (int shift = 7; shift < 70; shift += 7) {
+            b = bytes[++offset];
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at offset " + offset);
+    }
+
+    /**
+     * Write a varint at the buffer's position and advance it. Works on heap and direct buffers.
+     *
+     * @param buf target buffer
+     * @param val value to write
+     * @see #putVarInt(byte[], int, int)
+     */
+    public static void putVarInt(ByteBuffer buf, int val) {
+        while ((val & ~0x7F) != 0) {
+            buf.put((byte) (val | 0x80));
+            val >>>= 7;
+        }
+        buf.put((byte) val);
+    }
+
+    /**
+     * @param buf target buffer
+     * @param val value to write
+     * @see #putVarLong(byte[], int, long)
+     */
+    public static void putVarLong(ByteBuffer buf, long val) {
+        while ((val & ~0x7FL) != 0) {
+            buf.put((byte) (val | 0x80));
+            val >>>= 7;
+        }
+        buf.put((byte) val);
+    }
+
+    /**
+     * Read a varint at the buffer's position and advance it.
+     *
+     * @param buf source buffer
+     * @return the value
+     * @throws IllegalArgumentException if the varint is longer than 5 bytes
+     */
+    public static int getVarInt(ByteBuffer buf) {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = buf.get();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at position " + buf.position());
+    }
+
+    /**
+     * Read a varint at the buffer's position and advance it.
+     *
+     * @param buf source buffer
+     * @return the value
+     * @throws IllegalArgumentException if the varint is longer than 10 bytes
+     */
+    public static long getVarLong(ByteBuffer buf) {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            long b = buf.get();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at position " + buf.position());
+    }
+
+    /**
+     * @param out output to write to
+     * @param val value to write
+     * @throws IOException e
+     * @see #putVarInt(byte[], int, int)
+     */
+    public static void writeVarInt(final DataOutput out, int val) throws IOException {
+        while ((val & ~0x7F) != 0) {
+            out.writeByte(val | 0x80);
+            val >>>= 7;
+        }
+        out.writeByte(val);
+    }
+
+    /**
+     * @param out output to write to
+     * @param val value to write
+     * @throws IOException e
+     * @see #putVarLong(byte[], int, long)
+     */
+    public static void writeVarLong(final DataOutput out, long val) throws IOException {
+        while ((val & ~0x7FL) != 0) {
+            out.writeByte((int) (val | 0x80));
+            val >>>= 7;
+        }
+        out.writeByte((int) val);
+    }
+
+    /**
+     * @param in input to read from
+     * @return the value
+     * @throws IOException e, or if the varint is longer than 5 bytes
+     */
+    public static int readVarInt(final DataInput in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readByte();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * @param in input to read from
+     * @return the value
+     * @throws IOException e, or if the varint is longer than 10 bytes
+     */
+    public static long readVarLong(final DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            long b = in.readByte();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Write byte-array with a varint length prefix, 1 byte for arrays shorter than 128.
+     * A null array is written as an empty one.
+     *
+     * @param out output stream to be written to
+     * @param b   array to write
+     * @throws IOException e
+     * @see #readVarByteArray(DataInput)
+     */
+    public static void writeVarByteArray(final DataOutput out, final byte[] b)
+            throws IOException {
+        if (b == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, b.length);
+            out.write(b, 0, b.length);
+        }
+    }
+
+    /**
+     * Read byte-array written by {@link #writeVarByteArray(DataOutput, byte[])}.
+     *
+     * @param in Input to read from.
+     * @return byte array read off <code>in</code>
+     * @throws IOException e
+     */
+    public static byte[] readVarByteArray(final DataInput in) throws IOException {
+        int len = readVarInt(in);
+        if (len < 0) {
+            throw new NegativeArraySizeException(Integer.toString(len));
+        }
+        byte[] result = new byte[len];
+        in.readFully(result, 0, len);
+        return result;
+    }
+
+    // ==============================Bulk longs=======================================
+
+    /**
+     * Copy <code>len</code> longs into <code>bytes</code> in native byte order, as one bulk
+     * copy rather than a per-value shift loop. The result is only meant to be read back
+     * by {@link #getLongs(byte[], int, long[], int, int)} on a machine with the same byte order.
+     *
+     * @param bytes  the byte array
+     * @param offset position in the array
+     * @param src    longs to write
+     * @param srcOff offset in <code>src</code>
+     * @param len    number of longs
+     * @return incremented offset
+     */
+    public static int putLongs(byte[] bytes, int offset, long[] src, int srcOff, int len) {
+        ByteBuffer.wrap(bytes, offset, len * SIZEOF_LONG).order(ByteOrder.nativeOrder())
+                  .asLongBuffer().put(src, srcOff, len);
+        return offset + len * SIZEOF_LONG;
+    }
+
+    /**
+     * @param bytes  the byte array
+     * @param offset position in the array
+     * @param dst    longs to fill
+     * @param dstOff offset in <code>dst</code>
+     * @param len    number of longs
+     * @return incremented offset
+     * @see #putLongs(byte[], int, long[], int, int)
+     */
+    public static int getLongs(byte[] bytes, int offset, long[] dst, int dstOff, int len) {
+        ByteBuffer.wrap(bytes, offset, len * SIZEOF_LONG).order(ByteOrder.nativeOrder())
+                  .asLongBuffer().get(dst, dstOff, len);
+        return offset + len * SIZEOF_LONG;
+    }
+
+    /**
+     * @param src longs to write
+     * @return new array of <code>src.length * 8</code> bytes in native byte order
+     * @see #putLongs(byte[], int, long[], int, int)
+     */
+    public static byte[] putLongs(long[] src) {
+        byte[] re = new byte[src.length * SIZEOF_LONG];
+        putLongs(re, 0, src, 0, src.length);
+        return re;
+    }
+
+    /**
+     * @param bytes bytes written by {@link #putLongs(long[])}
+     * @return the longs
+     */
+    public static long[] getLongs(byte[] bytes) {
+        long[] re = new long[bytes.length / SIZEOF_LONG];
+        getLongs(bytes, 0, re, 0, re.length);
+        return re;
+    }
+
+    /**
+     * Copy longs at the buffer's position in native byte order and advance it.
+     * Works on heap and direct buffers, whatever the buffer's own byte order.
+     *
+     * @param buf    target buffer
+     * @param src    longs to write
+     * @param srcOff offset in <code>src</code>
+     * @param len    number of longs
+     */
+    public static void putLongs(ByteBuffer buf, long[] src, int srcOff, int len) {
+        buf.duplicate().order(ByteOrder.nativeOrder()).asLongBuffer().put(src, srcOff, len);
+        buf.position(buf.position() + len * SIZEOF_LONG);
+    }
+
+    /**
+     * @param buf    source buffer
+     * @param dst    longs to fill
+     * @param dstOff offset in <code>dst</code>
+     * @param len    number of longs
+     * @see #putLongs(ByteBuffer, long[], int, int)
+     */
+    public static void getLongs(ByteBuffer buf, long[] dst, int dstOff, int len) {
+        buf.duplicate().order(ByteOrder.nativeOrder()).asLongBuffer().get(dst, dstOff, len);
+        buf.position(buf.position() + len * SIZEOF_LONG);
+    }
+
     private static boolean isHexDigit(char c) {
         return
                 (c >= 'A' && c <= 'F') ||
@@ -329,7 +728,8 @@ public class Bytes {
     }
 
     /**
-     * Lexographically compare two arrays.
+     * Lexographically compare two arrays, 8 bytes at a time where the platform allows
+     * (see {@link LexicographicalComparer}).
      *
      * @param buffer1 left operand
      * @param buffer2 right operand
@@ -341,17 +741,15 @@ public class Bytes {
      */
     public static int compareTo(byte[] buffer1, int offset1, int length1,
                                 byte[] buffer2, int offset2, int length2) {
-        // Bring WritableComparator code local
-        int end1 = offset1 + length1;
-        int end2 = offset2 + length2;
-        for (int i = offset1, j = offset2; i < end1 && j < end2; i++, j++) {
-            int a = (buffer1[i] & 0xff);
-            int b = (buffer2[j] & 0xff);
-            if (a != b) {
-                return a - b;
-            }
+        if (buffer1 == buffer2 && offset1 == offset2 && length1 == length2) {
+            return 0;
+        }
+        int i = LexicographicalComparer.mismatch(buffer1, offset1, buffer2, offset2,
+                Math.min(length1, length2));
+        if (i < 0) {
+            return length1 - length2;
         }
-        return length1 - length2;
+        return (buffer1[offset1 + i] & 0xff) - (buffer2[offset2 + i] & 0xff);
     }
 
     /**
@@ -360,13 +758,34 @@ public class Bytes {
      * @return True if equal
      */
     public static boolean equals(final byte[] left, final byte[] right) {
-        // Could use Arrays.equals?
-        //noinspection SimplifiableConditionalExpression
-        if (left == null && right == null) {
+        if (left == right) {
             return true;
         }
-        return (left == null || right == null || (left.length != right.length)
-                ? false : compareTo(left, right) == 0);
+        if (left == null || right == null || left.length != right.length) {
+            return false;
+        }
+        return LexicographicalComparer.mismatch(left, 0, right, 0, left.length) < 0;
+    }
+
+    /**
+     * @param left        left operand
+     * @param leftOffset  offset in the left buffer
+     * @param leftLength  length in the left buffer
+     * @param right       right operand
+     * @param rightOffset offset in the right buffer
+     * @param rightLength length in the right buffer
+     * @return True if equal
+     */
+    public static boolean equals(final byte[] left, int leftOffset, int leftLength,
+                                 final byte[] right, int rightOffset, int rightLength) {
+        if (leftLength != rightLength) {
+            return false;
+        }
+        if (left == right && leftOffset == rightOffset) {
+            return true;
+        }
+        return LexicographicalComparer.mismatch(left, leftOffset, right, rightOffset,
+                leftLength) < 0;
     }
 
     /**
@@ -380,7 +799,7 @@ public class Bytes {
     public static boolean startsWith(byte[] bytes, byte[] prefix) {
         return bytes != null && prefix != null &&
                 bytes.length >= prefix.length &&
-                compareTo(bytes, 0, prefix.length, prefix, 0, prefix.length) == 0;
+                LexicographicalComparer.mismatch(bytes, 0, prefix, 0, prefix.length) < 0;
     }
 
 
@@ -462,7 +881,8 @@ public class Bytes {
     }
 
     /**
-     * Split passed range.  Expensive operation relatively.  Uses BigInteger math.
+     * Split passed range.  Uses long math when the keys are at most 8 bytes long,
+     * BigInteger math otherwise.
      * Useful splitting ranges for MapReduce jobs.
      *
      * @param a   Beginning of range
@@ -509,15 +929,33 @@ public class Bytes {
     public static byte[] toBytesBinary(String in) {
         // this may be bigger than we need, but lets be safe.
         byte[] b = new byte[in.length()];
-        int size = 0;
-        for (int i = 0; i < in.length(); ++i) {
+        int size = toBytesBinary(in, 0, in.length(), b, 0);
+        // resize:
+        byte[] b2 = new byte[size];
+        System.arraycopy(b, 0, b2, 0, size);
+        return b2;
+    }
+
+    /**
+     * Decode the output of {@link #toStringBinary(byte[], int, int)} from
+     * <code>in[start, end)</code> into <code>dst</code>, without copying the range.
+     * <code>dst</code> needs at most <code>end - start</code> bytes.
+     *
+     * @param in     text to decode
+     * @param start  start index in <code>in</code>, inclusive
+     * @param end    end index in <code>in</code>, exclusive
+     * @param dst    target array
+     * @param offset position in <code>dst</code>
+     * @return incremented offset
+     */
+    public static int toBytesBinary(CharSequence in, int start, int end, byte[] dst, int offset) {
+        for (int i = start; i < end; ++i) {
             char ch = in.charAt(i);
             if (ch == '\\') {
-                // begin hex escape:
-                char next = in.charAt(i + 1);
-                if (next != 'x') {
+                // begin hex escape, a trailing or truncated one is taken as is:
+                if (i + 3 >= end || in.charAt(i + 1) != 'x') {
                     // invalid escape sequence, ignore this one.
-                    b[size++] = (byte) ch;
+                    dst[offset++] = (byte) ch;
                     continue;
                 }
                 // ok, take next 2 hex digits.
@@ -531,18 +969,13 @@ public class Bytes {
                     continue;
                 }
                 // turn hex ASCII digit -> number
-                byte d = (byte) ((toBinaryFromHex((byte) hd1) << 4) + toBinaryFromHex((byte) hd2));
-
-                b[size++] = d;
+                dst[offset++] = (byte) ((toBinaryFromHex((byte) hd1) << 4) + toBinaryFromHex((byte) hd2));
                 i += 3; // skip 3
             } else {
-                b[size++] = (byte) ch;
+                dst[offset++] = (byte) ch;
             }
         }
-        // resize:
-        byte[] b2 = new byte[size];
-        System.arraycopy(b, 0, b2, 0, size);
-        return b2;
+        return offset;
     }
 
     public static byte[] toBytes(int n) {
@@ -669,23 +1102,108 @@ public class Bytes {
      * @return string output
      */
     public static String toStringBinary(final byte[] b, int off, int len) {
-        StringBuilder result = new StringBuilder();
-        try {
-            String first = new String(b, off, len, "ISO-8859-1");
-            for (int i = 0; i < first.length(); ++i) {
-                int ch = first.charAt(i) & 0xFF;
-                if ((ch >= '0' && ch <= '9')
-                        || (ch >= 'A' && ch <= 'Z')
-                        || (ch >= 'a' && ch <= 'z')
-                        || " `~!@#$%^&*()-_=+[]{}\\|;:'\",.<>/?".indexOf(ch) >= 0) {
-                    result.append(first.charAt(i));
-                } else {
-                    result.append(String.format("\\x%02X", ch));
-                }
+        return toStringBinary(b, off, len, new StringBuilder(len + 16)).toString();
+    }
+
+    /**
+     * Append a printable representation of a byte array to <code>sb</code>.
+     *
+     * @param b   array to write out
+     * @param off offset to start at
+     * @param len length to write
+     * @param sb  target
+     * @return sb
+     * @see #toStringBinary(byte[], int, int)
+     */
+    public static StringBuilder toStringBinary(final byte[] b, int off, int len,
+                                               StringBuilder sb) {
+        for (int i = off, end = off + len; i < end; i++) {
+            int ch = b[i] & 0xFF;
+            if (PRINTABLE[ch]) {
+                sb.append((char) ch);
+            } else {
+                sb.append('\\').append('x');
+                Hex.appendHex(b, i, 1, sb, false);
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Append a printable representation of a byte array to <code>out</code>.
+     *
+     * @param b   array to write out
+     * @param off offset to start at
+     * @param len length to write
+     * @param out target
+     * @return out
+     * @throws IOException e
+     * @see #toStringBinary(byte[], int, int)
+     */
+    public static <A extends Appendable> A toStringBinary(final byte[] b, int off, int len,
+                                                          A out) throws IOException {
+        for (int i = off, end = off + len; i < end; i++) {
+            int ch = b[i] & 0xFF;
+            if (PRINTABLE[ch]) {
+                out.append((char) ch);
+            } else {
+                out.append('\\').append('x');
+                Hex.appendHex(b, i, 1, out, false);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Write a printable representation of a byte array into <code>dst</code>,
+     * which needs at most <code>4 * len</code> chars.
+     *
+     * @param b      array to write out
+     * @param off    offset to start at
+     * @param len    length to write
+     * @param dst    target
+     * @param offset position in <code>dst</code>
+     * @return incremented offset
+     * @see #toStringBinary(byte[], int, int)
+     */
+    public static int toStringBinary(final byte[] b, int off, int len, char[] dst, int offset) {
+        for (int i = off, end = off + len; i < end; i++) {
+            int ch = b[i] & 0xFF;
+            if (PRINTABLE[ch]) {
+                dst[offset++] = (char) ch;
+            } else {
+                dst[offset++] = '\\';
+                dst[offset++] = 'x';
+                offset = Hex.encodeHex(b, i, 1, dst, offset, false);
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Write a printable representation of a byte array into <code>dst</code> as ASCII,
+     * which needs at most <code>4 * len</code> bytes.
+     *
+     * @param b      array to write out
+     * @param off    offset to start at
+     * @param len    length to write
+     * @param dst    target
+     * @param offset position in <code>dst</code>
+     * @return incremented offset
+     * @see #toStringBinary(byte[], int, int)
+     */
+    public static int toStringBinary(final byte[] b, int off, int len, byte[] dst, int offset) {
+        for (int i = off, end = off + len; i < end; i++) {
+            int ch = b[i] & 0xFF;
+            if (PRINTABLE[ch]) {
+                dst[offset++] = (byte) ch;
+            } else {
+                dst[offset++] = '\\';
+                dst[offset++] = 'x';
+                offset = Hex.encodeHex(b, i, 1, dst, offset, false);
             }
-        } catch (UnsupportedEncodingException e) {
         }
-        return result.toString();
+        return offset;
     }
 
     public static byte[] toBytes(long n) {
@@ -839,80 +1357,174 @@ public class Bytes {
      */
     public static Iterable<byte[]> iterateOnSplits(
             final byte[] a, final byte[] b, final int num) {
-        byte[] aPadded;
-        byte[] bPadded;
-        if (a.length < b.length) {
-            aPadded = padTail(a, b.length - a.length);
-            bPadded = b;
-        } else if (b.length < a.length) {
-            aPadded = a;
-            bPadded = padTail(b, a.length - b.length);
-        } else {
-            aPadded = a;
-            bPadded = b;
+        final KeySplitter splitter = KeySplitter.of(a, b, num);
+        if (splitter == null) {
+            return null;
         }
-        if (compareTo(aPadded, bPadded) >= 0) {
-            throw new IllegalArgumentException("b <= a");
+        return new Iterable<byte[]>() {
+            @Override
+            public Iterator<byte[]> iterator() {
+                return new Iterator<byte[]>() {
+                    private int i = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < num + 1;
+                    }
+
+                    @Override
+                    public byte[] next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        i++;
+                        if (i == 0) {
+                            return a;
+                        }
+                        if (i == num + 1) {
+                            return b;
+                        }
+                        return splitter.get(i);
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Split passed range into one caller-supplied buffer, without allocating a key per split.
+     * Both ends are padded with trailing zeros to the longer length L; the <code>num + 2</code>
+     * keys (padded start, the splits, padded end) are written back to back, L bytes each.
+     *
+     * @param a      Beginning of range
+     * @param b      End of range
+     * @param num    Number of times to split range
+     * @param dst    buffer with at least <code>(num + 2) * L</code> bytes from <code>offset</code>
+     * @param offset offset into <code>dst</code>
+     * @return L, the length of each key, or -1 if the range is too small to split
+     * @throws IllegalArgumentException if b &lt;= a, or <code>dst</code> is too small
+     */
+    public static int split(final byte[] a, final byte[] b, final int num, final byte[] dst,
+                            final int offset) {
+        KeySplitter splitter = KeySplitter.of(a, b, num);
+        if (splitter == null) {
+            return -1;
+        }
+        int length = splitter.length;
+        if (offset < 0 || (long) (num + 2) * length > dst.length - offset) {
+            throw new IllegalArgumentException("Not enough room to put " + (num + 2)
+                    + " keys of " + length + " bytes at offset " + offset + " in a "
+                    + dst.length + " byte array");
         }
-        if (num <= 0) {
-            throw new IllegalArgumentException("num cannot be < 0");
+        for (int i = 0, off = offset; i < num + 2; i++, off += length) {
+            splitter.write(i, dst, off);
         }
-        byte[] prependHeader = {1, 0};
-        final BigInteger startBI = new BigInteger(add(prependHeader, aPadded));
-        final BigInteger stopBI = new BigInteger(add(prependHeader, bPadded));
-        final BigInteger diffBI = stopBI.subtract(startBI);
-        final BigInteger splitsBI = BigInteger.valueOf(num + 1);
-        if (diffBI.compareTo(splitsBI) < 0) {
+        return length;
+    }
+
+    /**
+     * Split passed range into read-only slices of a single backing array.
+     *
+     * @param a   Beginning of range
+     * @param b   End of range
+     * @param num Number of times to split range
+     * @return padded start, the splits and padded end, or null if the range is too small
+     * @see #split(byte[], byte[], int, byte[], int)
+     */
+    public static ByteBuffer[] splitAsSlices(final byte[] a, final byte[] b, final int num) {
+        KeySplitter splitter = KeySplitter.of(a, b, num);
+        if (splitter == null) {
             return null;
         }
-        final BigInteger intervalBI;
-        try {
-            intervalBI = diffBI.divide(splitsBI);
-        } catch (Exception e) {
+        int length = splitter.length;
+        byte[] buf = new byte[(num + 2) * length];
+        ByteBuffer[] ret = new ByteBuffer[num + 2];
+        for (int i = 0; i < ret.length; i++) {
+            splitter.write(i, buf, i * length);
+            ret[i] = ByteBuffer.wrap(buf, i * length, length).slice().asReadOnlyBuffer();
+        }
+        return ret;
+    }
+
+    /**
+     * Divide [a, b) into <code>n</code> evenly weighted ranges, e.g. one task per range for a
+     * fork-join pool. The first range starts at <code>a</code> and the last one ends at
+     * <code>b</code>, adjacent ranges share the boundary array.
+     *
+     * @param a Beginning of range, inclusive
+     * @param b End of range, exclusive
+     * @param n number of ranges, at least 1
+     * @return the ranges in order, or null if [a, b) is too small for <code>n</code> ranges
+     */
+    public static KeyRange[] ranges(final byte[] a, final byte[] b, final int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must > 0!");
+        }
+        if (n == 1) {
+            if (compareTo(a, b) >= 0) {
+                throw new IllegalArgumentException("b <= a");
+            }
+            return new KeyRange[]{new KeyRange(a, b)};
+        }
+        KeySplitter splitter = KeySplitter.of(a, b, n - 1);
+        if (splitter == null) {
             return null;
         }
+        KeyRange[] ret = new KeyRange[n];
+        byte[] start = a;
+        for (int i = 1; i < n; i++) {
+            byte[] end = splitter.get(i);
+            ret[i - 1] = new KeyRange(start, end);
+            start = end;
+        }
+        ret[n - 1] = new KeyRange(start, b);
+        return ret;
+    }
 
-        final Iterator<byte[]> iterator = new Iterator<byte[]>() {
-            private int i = -1;
+    /**
+     * A [start, end) key range.
+     */
+    public static final class KeyRange {
 
-            @Override
-            public boolean hasNext() {
-                return i < num + 1;
-            }
+        private final byte[] start;
+        private final byte[] end;
 
-            @Override
-            public byte[] next() {
-                i++;
-                if (i == 0) {
-                    return a;
-                }
-                if (i == num + 1) {
-                    return b;
-                }
+        public KeyRange(byte[] start, byte[] end) {
+            this.start = start;
+            this.end = end;
+        }
 
-                BigInteger curBI = startBI.add(intervalBI.multiply(BigInteger.valueOf(i)));
-                byte[] padded = curBI.toByteArray();
-                if (padded[1] == 0) {
-                    padded = tail(padded, padded.length - 2);
-                } else {
-                    padded = tail(padded, padded.length - 1);
-                }
-                return padded;
-            }
+        /**
+         * @return first key, inclusive
+         */
+        public byte[] getStart() {
+            return start;
+        }
 
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException();
-            }
+        /**
+         * @return end key, exclusive
+         */
+        public byte[] getEnd() {
+            return end;
+        }
 
-        };
+        /**
+         * @param key key
+         * @return true if start &lt;= key &lt; end
+         */
+        public boolean contains(byte[] key) {
+            return compareTo(start, key) <= 0 && compareTo(key, end) < 0;
+        }
 
-        return new Iterable<byte[]>() {
-            @Override
-            public Iterator<byte[]> iterator() {
-                return iterator;
-            }
-        };
+        @Override
+        public String toString() {
+            return "[" + toStringBinary(start) + ", " + toStringBinary(end) + ")";
+        }
     }
 
     /**
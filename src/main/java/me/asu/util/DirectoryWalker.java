@@ -0,0 +1,466 @@
+package me.asu.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于 {@link java.nio.file.Files#newDirectoryStream(Path, DirectoryStream.Filter)} 的目录遍历，
+ * {@link Files#ls(File, String, Files.LsMode)}、{@link Files#scanDirs(File)} 等方法的实现。
+ * <p>
+ * 文件名过滤 (正则、后缀、glob) 和隐藏文件过滤在读取目录流时进行，不先构造 File[]；
+ * 不会进入子目录且名字不匹配的项连属性都不读。每一项的 {@link BasicFileAttributes} 只读一次，
+ * 判断类型和回调都用它。不跟随符号链接进入目录。
+ * <p>
+ * {@link #walk(Visitor)} 在 fork-join 池上并行遍历，待读的目录对半拆分成任务，每个目录由一个任务读取；{@link #stream()} 惰性地按需读取，
+ * 得到的 Stream 调用 parallel() 后会把待读的目录分给其他线程。读取失败的子目录 (例如没有权限) 被跳过。
+ *
+ * <pre>
+ * List&lt;Path&gt; logs = DirectoryWalker.of(root).suffix(".log").mode(Files.LsMode.FILE).list();
+ * </pre>
+ */
+public final class DirectoryWalker {
+
+    private final Path root;
+
+    private Pattern     pattern;
+    private boolean     exclude;
+    private String      suffix;
+    private PathMatcher glob;
+    private Files.LsMode mode = Files.LsMode.ALL;
+    private boolean     skipHidden;
+    private int         maxDepth = Integer.MAX_VALUE;
+    private ForkJoinPool pool;
+
+    private DirectoryWalker(Path root) {
+        this.root = root;
+    }
+
+    public static DirectoryWalker of(Path root) {
+        return new DirectoryWalker(root);
+    }
+
+    public static DirectoryWalker of(File root) {
+        return new DirectoryWalker(root.toPath());
+    }
+
+    /**
+     * 文件名正则 (find 匹配)，以 "!" 开头表示排除，空白表示不过滤，与 {@link Files#ls(File, String, Files.LsMode)} 相同
+     */
+    public DirectoryWalker regex(String regex) {
+        if (Strings.isBlank(regex)) {
+            return pattern(null, false);
+        }
+        boolean ex = regex.startsWith("!");
+        if (ex) {
+            regex = Strings.trim(regex.substring(1));
+        }
+        return pattern(Pattern.compile(regex), ex);
+    }
+
+    /**
+     * @param pattern 文件名正则 (find 匹配)，null 表示不过滤
+     * @param exclude true 表示排除匹配的项
+     */
+    public DirectoryWalker pattern(Pattern pattern, boolean exclude) {
+        this.pattern = pattern;
+        this.exclude = exclude;
+        return this;
+    }
+
+    /**
+     * 文件名后缀，null 表示不过滤
+     */
+    public DirectoryWalker suffix(String suffix) {
+        this.suffix = suffix;
+        return this;
+    }
+
+    /**
+     * 文件名 glob，例如 "*.{log,txt}"，null 表示不过滤
+     */
+    public DirectoryWalker glob(String glob) {
+        this.glob = glob == null ? null : root.getFileSystem().getPathMatcher("glob:" + glob);
+        return this;
+    }
+
+    /**
+     * 只返回文件、目录或全部，null 表示全部。不影响进入子目录
+     */
+    public DirectoryWalker mode(Files.LsMode mode) {
+        this.mode = mode == null ? Files.LsMode.ALL : mode;
+        return this;
+    }
+
+    /**
+     * 是否跳过隐藏的文件和目录 (以 "." 开头，或 Windows 下的隐藏属性)，跳过的目录不会进入
+     */
+    public DirectoryWalker skipHidden(boolean skipHidden) {
+        this.skipHidden = skipHidden;
+        return this;
+    }
+
+    /**
+     * @param maxDepth 1 表示只列出 root 的直接子项
+     */
+    public DirectoryWalker maxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must > 0: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * {@link #walk(Visitor)} 使用的 fork-join 池，默认为 {@link ForkJoinPool#commonPool()}
+     */
+    public DirectoryWalker pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * 访问通过过滤的项
+     */
+    public interface Visitor {
+
+        /**
+         * 可能被多个线程同时调用
+         *
+         * @param path  路径
+         * @param attrs 遍历时读取的属性 (不跟随符号链接)
+         * @return 对目录返回 false 表示不进入该目录，对文件忽略
+         */
+        boolean visit(Path path, BasicFileAttributes attrs);
+    }
+
+    private boolean nameMatches(Path path) {
+        if (pattern == null && suffix == null && glob == null) {
+            return true;
+        }
+        Path name = path.getFileName();
+        String s = name.toString();
+        if (pattern != null && (pattern.matcher(s).find() == exclude)) {
+            return false;
+        }
+        if (suffix != null && !s.endsWith(suffix)) {
+            return false;
+        }
+        return glob == null || glob.matches(name);
+    }
+
+    private boolean typeMatches(Path path, BasicFileAttributes attrs) {
+        if (mode == Files.LsMode.ALL) {
+            return true;
+        }
+        if (attrs.isSymbolicLink()) {
+            // 与 File.isFile/isDirectory 一致，按链接目标判断类型
+            try {
+                attrs = java.nio.file.Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return mode == Files.LsMode.FILE ? attrs.isRegularFile() : attrs.isDirectory();
+    }
+
+    private static boolean hiddenName(Path path) {
+        return path.getFileName().toString().startsWith(".");
+    }
+
+    /**
+     * 读取目录流时就过滤掉的项，不读属性
+     */
+    private DirectoryStream.Filter<Path> streamFilter(final boolean descend) {
+        return new DirectoryStream.Filter<Path>() {
+            @Override
+            public boolean accept(Path entry) {
+                if (skipHidden && hiddenName(entry)) {
+                    return false;
+                }
+                return descend || nameMatches(entry);
+            }
+        };
+    }
+
+    /**
+     * 处理目录中的一项
+     *
+     * @return 需要进入的子目录返回 true
+     */
+    private boolean process(Path entry, boolean descend, Visitor visitor) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = java.nio.file.Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return false;
+        }
+        if (skipHidden && attrs instanceof DosFileAttributes && ((DosFileAttributes) attrs).isHidden()) {
+            return false;
+        }
+        boolean re = descend && attrs.isDirectory();
+        if (nameMatches(entry) && typeMatches(entry, attrs)) {
+            re &= visitor.visit(entry, attrs);
+        }
+        return re;
+    }
+
+    /**
+     * 在 fork-join 池上并行遍历，返回时遍历已完成
+     *
+     * @param visitor 访问通过过滤的项，必须是线程安全的
+     * @throws IOException root 不是目录或无法读取
+     */
+    public void walk(Visitor visitor) throws IOException {
+        List<Path> subdirs = readDir(root, 0, visitor);
+        ForkJoinPool p = pool != null ? pool : ForkJoinPool.commonPool();
+        p.invoke(new WalkTask(subdirs, 1, visitor));
+    }
+
+    /**
+     * 读取一个目录，返回需要进入的子目录
+     */
+    private List<Path> readDir(Path dir, int depth, Visitor visitor) throws IOException {
+        boolean descend = depth + 1 < maxDepth;
+        List<Path> subdirs = null;
+        DirectoryStream<Path> ds = java.nio.file.Files.newDirectoryStream(dir, streamFilter(descend));
+        try {
+            for (Path entry : ds) {
+                if (process(entry, descend, visitor)) {
+                    if (subdirs == null) {
+                        subdirs = new ArrayList<Path>();
+                    }
+                    subdirs.add(entry);
+                }
+            }
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        } finally {
+            Streams.safeClose(ds);
+        }
+        return subdirs == null ? Collections.<Path>emptyList() : subdirs;
+    }
+
+    private final class WalkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 4330906373301209431L;
+
+        private final List<Path> dirs;
+        private final int        depth;
+        private final Visitor    visitor;
+
+        WalkTask(List<Path> dirs, int depth, Visitor visitor) {
+            this.dirs = dirs;
+            this.depth = depth;
+            this.visitor = visitor;
+        }
+
+        /**
+         * 多个目录时对半拆分，直到每个任务只剩一个目录再读取，同级的目录也能分给不同的线程
+         */
+        @Override
+        protected void compute() {
+            int n = dirs.size();
+            if (n == 0) {
+                return;
+            }
+            if (n > 1) {
+                invokeAll(new WalkTask(dirs.subList(0, n >>> 1), depth, visitor),
+                          new WalkTask(dirs.subList(n >>> 1, n), depth, visitor));
+                return;
+            }
+            List<Path> subdirs;
+            try {
+                subdirs = readDir(dirs.get(0), depth, visitor);
+            } catch (IOException e) {
+                return;
+            }
+            new WalkTask(subdirs, depth + 1, visitor).compute();
+        }
+    }
+
+    /**
+     * 并行遍历，返回通过过滤的所有路径，顺序不确定
+     */
+    public List<Path> list() throws IOException {
+        final ConcurrentLinkedQueue<Path> re = new ConcurrentLinkedQueue<Path>();
+        walk(new Visitor() {
+            @Override
+            public boolean visit(Path path, BasicFileAttributes attrs) {
+                re.add(path);
+                return true;
+            }
+        });
+        return new ArrayList<Path>(re);
+    }
+
+    /**
+     * @return 同 {@link #list()}，root 不是目录或无法读取时返回 null，与 {@link File#listFiles()} 一致
+     */
+    public File[] listFiles() {
+        List<Path> paths;
+        try {
+            paths = list();
+        } catch (IOException e) {
+            return null;
+        }
+        File[] re = new File[paths.size()];
+        for (int i = 0; i < re.length; i++) {
+            re[i] = paths.get(i).toFile();
+        }
+        return re;
+    }
+
+    /**
+     * 惰性遍历，每次只打开一个目录，需要时才读取下一项。调用 parallel() 后可以多线程遍历。
+     * 没有遍历完时需要关闭 Stream 以关闭打开的目录
+     *
+     * @return 通过过滤的路径
+     * @throws UncheckedIOException root 不是目录或无法读取
+     */
+    public Stream<Path> stream() {
+        final Set<DirectoryStream<Path>> open =
+                Collections.newSetFromMap(new ConcurrentHashMap<DirectoryStream<Path>, Boolean>());
+        WalkSpliterator spliterator = new WalkSpliterator(open, new ArrayDeque<Object[]>());
+        try {
+            spliterator.open(root, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                for (DirectoryStream<Path> ds : open) {
+                    Streams.safeClose(ds);
+                }
+            }
+        });
+    }
+
+    /**
+     * 当前打开一个目录，待读的子目录放在 pending 中，拆分时分出一半待读的目录
+     */
+    private final class WalkSpliterator implements Spliterator<Path>, Visitor {
+
+        private final Set<DirectoryStream<Path>> open;
+
+        /**
+         * {路径, 深度}
+         */
+        private final Deque<Object[]> pending;
+
+        private DirectoryStream<Path> current;
+        private Iterator<Path>        it;
+        private boolean               descend;
+        private int                   depth;
+
+        private Path found;
+
+        WalkSpliterator(Set<DirectoryStream<Path>> open, Deque<Object[]> pending) {
+            this.open = open;
+            this.pending = pending;
+        }
+
+        void open(Path dir, int depth) throws IOException {
+            this.descend = depth + 1 < maxDepth;
+            this.depth = depth;
+            current = java.nio.file.Files.newDirectoryStream(dir, streamFilter(descend));
+            open.add(current);
+            it = current.iterator();
+        }
+
+        private void closeCurrent() {
+            if (current != null) {
+                Streams.safeClose(current);
+                open.remove(current);
+                current = null;
+                it = null;
+            }
+        }
+
+        @Override
+        public boolean visit(Path path, BasicFileAttributes attrs) {
+            found = path;
+            return true;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Path> action) {
+            for (; ; ) {
+                if (it == null) {
+                    Object[] next = pending.pollFirst();
+                    if (next == null) {
+                        return false;
+                    }
+                    try {
+                        open((Path) next[0], (Integer) next[1]);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                }
+                try {
+                    while (it.hasNext()) {
+                        Path entry = it.next();
+                        found = null;
+                        if (process(entry, descend, this)) {
+                            pending.addLast(new Object[]{entry, depth + 1});
+                        }
+                        if (found != null) {
+                            action.accept(found);
+                            return true;
+                        }
+                    }
+                } catch (DirectoryIteratorException e) {
+                    // 跳过读取失败的目录
+                }
+                closeCurrent();
+            }
+        }
+
+        @Override
+        public Spliterator<Path> trySplit() {
+            int n = pending.size() / 2;
+            if (n == 0) {
+                return null;
+            }
+            Deque<Object[]> half = new ArrayDeque<Object[]>(n);
+            for (int i = 0; i < n; i++) {
+                half.addFirst(pending.pollLast());
+            }
+            return new WalkSpliterator(open, half);
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL | DISTINCT;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package me.asu.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 崩溃安全的状态文件，{@link #write(byte[])} 返回时内容已经落盘。
+ * <p>
+ * 两种模式：
+ * <ul>
+ * <li>{@link Mode#REPLACE}：写临时文件并 fsync，再用 ATOMIC_MOVE 替换目标文件，最后 fsync 所在目录。
+ * 崩溃后文件要么是旧内容要么是新内容，不会是空文件或不存在。</li>
+ * <li>{@link Mode#JOURNAL}：每次写入在文件末尾追加一条记录 (长度 + CRC32 + 内容)，只 fsync 这个文件，
+ * 打开时以最后一条完整的记录为当前状态，截掉崩溃留下的半条记录。文件超过阈值时用 REPLACE 的方式压缩为一条记录。
+ * 适合频繁更新的小状态文件，文件内容不是状态本身，需要用 {@link #read()} 读取。</li>
+ * </ul>
+ * 组提交：同一时刻只有一个线程在 fsync，这期间到达的写入排队，fsync 完成后由其中一个线程一次提交：
+ * REPLACE 只写最新的内容，JOURNAL 一次 fsync 所有已追加的记录。并发写入越多，平均每次写入的 fsync 越少。
+ * <p>
+ * 线程安全。同一个文件只能被一个实例打开。
+ */
+public final class DurableFile implements Closeable {
+
+    /**
+     * 写入模式
+     */
+    public enum Mode {
+        /**
+         * 临时文件 + 原子替换
+         */
+        REPLACE,
+        /**
+         * 追加日志
+         */
+        JOURNAL
+    }
+
+    /**
+     * JOURNAL 模式默认的压缩阈值
+     */
+    public static final long DEFAULT_COMPACT_THRESHOLD = 1024 * 1024;
+
+    /**
+     * 记录头：内容长度 (int) + CRC32 (int)
+     */
+    private static final int RECORD_HEADER = 8;
+
+    private final Path path;
+    private final Path tmp;
+    private final Mode mode;
+    private final long compactThreshold;
+
+    private final Object lock = new Object();
+
+    /**
+     * 已提交的写入序号
+     */
+    private long submitted;
+
+    /**
+     * 已落盘的写入序号
+     */
+    private long durable;
+
+    /**
+     * 序号不超过它的写入提交失败
+     */
+    private long        failedUpTo;
+    private IOException failure;
+
+    /**
+     * 是否有线程在落盘
+     */
+    private boolean committing;
+
+    /**
+     * 最新的状态
+     */
+    private byte[] latest;
+
+    /**
+     * REPLACE: 还没有写入的最新内容
+     */
+    private byte[] pending;
+
+    /**
+     * JOURNAL: 日志文件和有效内容的长度
+     */
+    private FileChannel journal;
+    private long        journalSize;
+
+    private boolean closed;
+
+    private DurableFile(Path path, Mode mode, long compactThreshold) {
+        this.path = path.toAbsolutePath();
+        this.tmp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        this.mode = mode;
+        this.compactThreshold = compactThreshold;
+    }
+
+    public static DurableFile open(Path path, Mode mode) throws IOException {
+        return open(path, mode, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * 打开文件，不存在时在第一次写入时创建
+     *
+     * @param path             文件
+     * @param mode             模式
+     * @param compactThreshold JOURNAL 模式下日志超过多少字节时压缩
+     */
+    public static DurableFile open(Path path, Mode mode, long compactThreshold) throws IOException {
+        if (compactThreshold <= 0) {
+            throw new IllegalArgumentException("compactThreshold must > 0: " + compactThreshold);
+        }
+        DurableFile re = new DurableFile(path, mode, compactThreshold);
+        java.nio.file.Files.deleteIfExists(re.tmp);
+        if (mode == Mode.JOURNAL) {
+            re.openJournal();
+        } else if (java.nio.file.Files.exists(re.path)) {
+            re.latest = java.nio.file.Files.readAllBytes(re.path);
+        }
+        return re;
+    }
+
+    /**
+     * @return 文件路径
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return 当前状态的副本，从未写入过时返回 null
+     */
+    public byte[] read() {
+        synchronized (lock) {
+            return latest == null ? null : latest.clone();
+        }
+    }
+
+    /**
+     * 写入新的状态，返回时已落盘 (包括并发写入中更新的内容)
+     *
+     * @param content 新的状态，调用后不能修改
+     * @throws IOException 写入或 fsync 失败，与之合并提交的写入也会失败
+     */
+    public void write(byte[] content) throws IOException {
+        long seq;
+        synchronized (lock) {
+            ensureOpen();
+            if (mode == Mode.REPLACE) {
+                pending = content;
+                seq = ++submitted;
+            } else {
+                if (!committing && journalSize + RECORD_HEADER + content.length > compactThreshold) {
+                    // 没有线程在 fsync 旧的日志时才能换文件
+                    compact(content);
+                    durable = ++submitted;
+                    lock.notifyAll();
+                    return;
+                }
+                appendRecord(content);
+                seq = ++submitted;
+            }
+            latest = content;
+        }
+        awaitCommit(seq);
+    }
+
+    /**
+     * 等待序号 seq 的写入落盘，没有线程在落盘时自己来做
+     */
+    private void awaitCommit(long seq) throws IOException {
+        long batch;
+        byte[] data;
+        synchronized (lock) {
+            for (; ; ) {
+                if (durable >= seq) {
+                    return;
+                }
+                if (failedUpTo >= seq) {
+                    throw new IOException("Commit failed: " + path, failure);
+                }
+                if (!committing) {
+                    break;
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for commit: " + path);
+                }
+            }
+            ensureOpen();
+            committing = true;
+            batch = submitted;
+            data = pending;
+            pending = null;
+        }
+        IOException error = null;
+        try {
+            if (mode == Mode.REPLACE) {
+                replace(data);
+            } else {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (lock) {
+            committing = false;
+            if (error == null) {
+                durable = batch;
+            } else {
+                failedUpTo = batch;
+                failure = error;
+            }
+            lock.notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * 写临时文件、fsync、原子替换、fsync 目录
+     */
+    private void replace(byte[] data) throws IOException {
+        FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                          StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeFully(ch, ByteBuffer.wrap(data), 0);
+            ch.force(true);
+        } finally {
+            ch.close();
+        }
+        commit(tmp, path);
+    }
+
+    /**
+     * 把已经 fsync 过的 src 原子地替换 target，并 fsync target 所在目录
+     *
+     * @param src    临时文件，和 target 在同一个目录
+     * @param target 目标文件
+     */
+    public static void commit(Path src, Path target) throws IOException {
+        move(src, target);
+        fsyncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    private static void move(Path src, Path target) throws IOException {
+        try {
+            java.nio.file.Files.move(src, target, StandardCopyOption.ATOMIC_MOVE,
+                                     StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            java.nio.file.Files.move(src, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * fsync 文件内容和元数据
+     */
+    public static void fsync(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE);
+        try {
+            ch.force(true);
+        } finally {
+            ch.close();
+        }
+    }
+
+    /**
+     * fsync 目录，使其中的创建、改名落盘。不能以读方式打开目录的平台 (Windows) 上忽略
+     */
+    public static void fsyncDirectory(Path dir) throws IOException {
+        if (dir == null) {
+            return;
+        }
+        FileChannel ch;
+        try {
+            ch = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try {
+            ch.force(true);
+        } finally {
+            ch.close();
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += ch.write(buf, position);
+        }
+    }
+
+    private static ByteBuffer record(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_HEADER + content.length);
+        buf.putInt(content.length).putInt((int) crc.getValue()).put(content);
+        buf.flip();
+        return buf;
+    }
+
+    private void appendRecord(byte[] content) throws IOException {
+        ByteBuffer buf = record(content);
+        writeFully(journal, buf, journalSize);
+        journalSize += buf.limit();
+    }
+
+    /**
+     * 读取日志，以最后一条完整的记录为状态，截掉末尾不完整的记录。新建日志时 fsync 所在目录
+     */
+    private void openJournal() throws IOException {
+        boolean existed = java.nio.file.Files.exists(path);
+        journal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        try {
+            if (!existed) {
+                fsyncDirectory(path.getParent());
+            }
+            long size = journal.size();
+            long pos = 0;
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+            CRC32 crc = new CRC32();
+            while (pos + RECORD_HEADER <= size) {
+                header.clear();
+                readFully(journal, header, pos);
+                header.flip();
+                int len = header.getInt();
+                int sum = header.getInt();
+                if (len < 0 || len > size - pos - RECORD_HEADER) {
+                    break;
+                }
+                byte[] content = new byte[len];
+                readFully(journal, ByteBuffer.wrap(content), pos + RECORD_HEADER);
+                crc.reset();
+                crc.update(content, 0, len);
+                if ((int) crc.getValue() != sum) {
+                    break;
+                }
+                latest = content;
+                pos += RECORD_HEADER + len;
+            }
+            if (pos < size) {
+                journal.truncate(pos);
+                journal.force(true);
+            }
+            journalSize = pos;
+        } catch (IOException e) {
+            Streams.safeClose(journal);
+            throw e;
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of journal");
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * 把日志替换为只有 content 一条记录的新文件，调用时持有锁且没有线程在 fsync
+     */
+    private void compact(byte[] content) throws IOException {
+        ByteBuffer buf = record(content);
+        FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeFully(ch, buf, 0);
+            ch.force(true);
+            move(tmp, path);
+        } catch (IOException e) {
+            Streams.safeClose(ch);
+            throw e;
+        }
+        // 改名后 path 已经是新文件，旧通道指向的文件已被删除，之后即使 fsync 目录失败也要换到新通道
+        Streams.safeClose(journal);
+        journal = ch;
+        journalSize = buf.limit();
+        latest = content;
+        fsyncDirectory(path.getParent());
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Closed: " + path);
+        }
+    }
+
+    /**
+     * 等待正在进行的提交完成后关闭
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (committing) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DurableFile[" + path + ", " + mode + "]";
+    }
+}
@@ -7,7 +7,18 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -21,6 +32,11 @@ import java.util.zip.ZipFile;
  */
 public abstract class Files {
 
+    /**
+     * 拷贝文件时的缓冲块大小
+     */
+    private static final int COPY_BUF_SIZE = 64 * 1024;
+
     /**
      * 读取 UTF-8 文件全部内容
      *
@@ -70,7 +86,12 @@ public abstract class Files {
      * @return 文件的字节内容
      */
     public static byte[] readBytes(File f) {
-        return Streams.readBytesAndClose(Streams.buff(Streams.fileIn(f)));
+        // readBytes 自己按块读取，不需要再套 BufferedInputStream
+        try {
+            return Streams.readBytesAndClose(new FileInputStream(f));
+        } catch (FileNotFoundException e) {
+            throw Exceptions.wrapThrow(e);
+        }
     }
 
     /**
@@ -420,42 +441,7 @@ public abstract class Files {
      * @see Files.LsMode
      */
     public static File[] ls(File d, final Pattern p, final boolean exclude, LsMode mode) {
-        if (null == p) {
-            return d.listFiles();
-        }
-        // 全部
-        else if (null == mode || LsMode.ALL == mode) {
-            return d.listFiles(new FileFilter() {
-                public boolean accept(File f) {
-                    return p.matcher(f.getName()).find() ^ exclude;
-                }
-            });
-        }
-        // 仅文件
-        else if (LsMode.FILE == mode) {
-            return d.listFiles(new FileFilter() {
-                public boolean accept(File f) {
-                    if (!f.isFile()) {
-                        return false;
-                    }
-                    return p.matcher(f.getName()).find() ^ exclude;
-                }
-            });
-        }
-        // 仅目录
-        else if (LsMode.DIR == mode) {
-            return d.listFiles(new FileFilter() {
-                @Override
-                public boolean accept(File f) {
-                    if (!f.isDirectory()) {
-                        return false;
-                    }
-                    return p.matcher(f.getName()).find() ^ exclude;
-                }
-            });
-        }
-        // 不可能
-        throw Exceptions.impossible();
+        return DirectoryWalker.of(d).pattern(p, exclude).mode(mode).maxDepth(1).listFiles();
     }
 
     /**
@@ -468,16 +454,7 @@ public abstract class Files {
      * @see #ls(java.io.File, java.util.regex.Pattern, boolean, Files.LsMode)
      */
     public static File[] ls(File d, String regex, LsMode mode) {
-        boolean exclude = false;
-        Pattern p = null;
-        if (!Strings.isBlank(regex)) {
-            exclude = regex.startsWith("!");
-            if (exclude) {
-                regex = Strings.trim(regex.substring(1));
-            }
-            p = Pattern.compile(regex);
-        }
-        return ls(d, p, exclude, mode);
+        return DirectoryWalker.of(d).regex(regex).mode(mode).maxDepth(1).listFiles();
     }
 
 
@@ -757,14 +734,18 @@ public abstract class Files {
                 return false;
             }
         }
-        InputStream ins = new BufferedInputStream(new FileInputStream(src));
-        OutputStream ops = new BufferedOutputStream(new FileOutputStream(target));
-
-        Streams.write(ops, ins);
-
-        Streams.safeClose(ins);
-        Streams.safeFlush(ops);
-        Streams.safeClose(ops);
+        // Streams.write 对文件流用 FileChannel.transferTo 在内核中拷贝，不需要再套 Buffered 流
+        InputStream ins = new FileInputStream(src);
+        try {
+            OutputStream ops = new FileOutputStream(target);
+            try {
+                Streams.write(ops, ins, COPY_BUF_SIZE);
+            } finally {
+                Streams.safeClose(ops);
+            }
+        } finally {
+            Streams.safeClose(ins);
+        }
         return target.setLastModified(src.lastModified());
     }
 
@@ -819,6 +800,97 @@ public abstract class Files {
         return re;
     }
 
+    /**
+     * 拷贝一个目录，文件交给最多 parallelism 个线程并行拷贝。
+     * <p>
+     * 目录在调用线程中遍历和创建；待拷贝的文件数超过 parallelism * 4 时，调用线程自己拷贝，
+     * 不会为很大的目录积压任务。有一个文件拷贝抛出异常时，等其他已提交的文件拷贝完后抛出第一个异常
+     *
+     * @param src         原始目录
+     * @param target      新目录
+     * @param parallelism 并行拷贝的线程数，不大于 1 时等同于 {@link #copyDir(File, File)}
+     * @return 是否拷贝成功
+     */
+    public static boolean copyDir(File src, File target, int parallelism) throws IOException {
+        if (parallelism <= 1) {
+            return copyDir(src, target);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism,
+                                                             0L, TimeUnit.MILLISECONDS,
+                                                             new ArrayBlockingQueue<Runnable>(parallelism * 4),
+                                                             new NamedThreadFactory("copyDir", true),
+                                                             new ThreadPoolExecutor.CallerRunsPolicy());
+        final AtomicBoolean re = new AtomicBoolean(true);
+        final AtomicReference<IOException> error = new AtomicReference<IOException>();
+        try {
+            if (!copyDir(src, target, executor, re, error)) {
+                re.set(false);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // 等待所有文件拷贝完成
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("copyDir interrupted: " + src);
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return re.get();
+    }
+
+    private static boolean copyDir(File src, File target, Executor executor,
+                                   final AtomicBoolean re, final AtomicReference<IOException> error)
+    throws IOException {
+        if (src == null || target == null || !src.exists()) {
+            return false;
+        }
+        if (!src.isDirectory()) {
+            throw new IOException(src.getAbsolutePath() + " should be a directory!");
+        }
+        if (!target.exists()) {
+            if (!makeDir(target)) {
+                return false;
+            }
+        }
+        File[] files = src.listFiles();
+        if (null != files) {
+            for (final File f : files) {
+                final File t = new File(target.getAbsolutePath() + "/" + f.getName());
+                if (f.isFile()) {
+                    if (error.get() != null) {
+                        break;
+                    }
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (error.get() != null) {
+                                return;
+                            }
+                            try {
+                                if (!copyFile(f, t)) {
+                                    re.set(false);
+                                }
+                            } catch (IOException e) {
+                                error.compareAndSet(null, e);
+                            } catch (RuntimeException e) {
+                                error.compareAndSet(null, new IOException(e));
+                            }
+                        }
+                    });
+                } else if (!copyDir(f, t, executor, re, error)) {
+                    re.set(false);
+                }
+            }
+        }
+        return true;
+    }
+
     public static void copyFolder(final Path srcPath, final Path destPath) throws IOException {
         long startTime = System.currentTimeMillis();
         if (java.nio.file.Files.notExists(srcPath)) {
@@ -943,16 +1015,21 @@ public abstract class Files {
      * @param dir  目录
      * @param name 要清除的目录名
      */
-    public static void cleanAllFolderInSubFolderes(File dir, String name) throws IOException {
-        File[] files = dir.listFiles();
-        for (File d : files) {
-            if (d.isDirectory()) {
-                if (d.getName().equalsIgnoreCase(name)) {
-                    deleteDir(d);
-                } else {
-                    cleanAllFolderInSubFolderes(d, name);
+    public static void cleanAllFolderInSubFolderes(File dir, final String name) throws IOException {
+        final ConcurrentLinkedQueue<Path> matched = new ConcurrentLinkedQueue<Path>();
+        DirectoryWalker.of(dir).mode(LsMode.DIR).walk(new DirectoryWalker.Visitor() {
+            @Override
+            public boolean visit(Path path, BasicFileAttributes attrs) {
+                if (path.getFileName().toString().equalsIgnoreCase(name)) {
+                    // 整个目录会被删除，不用再进入
+                    matched.add(path);
+                    return false;
                 }
+                return true;
             }
+        });
+        for (Path d : matched) {
+            deleteDir(d.toFile());
         }
     }
 
@@ -1005,12 +1082,7 @@ public abstract class Files {
      * @return 子目录数组
      */
     public static File[] dirs(File dir) {
-        return dir.listFiles(new FileFilter() {
-            @Override
-            public boolean accept(File f) {
-                return !f.isHidden() && f.isDirectory() && !f.getName().startsWith(".");
-            }
-        });
+        return DirectoryWalker.of(dir).mode(LsMode.DIR).skipHidden(true).maxDepth(1).listFiles();
     }
 
     /**
@@ -1022,24 +1094,25 @@ public abstract class Files {
      * @return 子目录数组
      */
     public static File[] scanDirs(File dir) {
-        ArrayList<File> list = new ArrayList<File>();
-        list.add(dir);
-        scanDirs(dir, list);
-        return list.toArray(new File[list.size()]);
-    }
-
-    private static void scanDirs(File rootDir, List<File> list) {
-        File[] dirs = rootDir.listFiles(new FileFilter() {
-            public boolean accept(File f) {
-                return !f.isHidden() && f.isDirectory() && !f.getName().startsWith(".");
+        List<Path> dirs;
+        try {
+            dirs = DirectoryWalker.of(dir).mode(LsMode.DIR).skipHidden(true).list();
+        } catch (IOException e) {
+            dirs = Collections.emptyList();
+        }
+        // 子目录在父目录之前，与原来的后序遍历一样可以按顺序删除
+        Collections.sort(dirs, new Comparator<Path>() {
+            @Override
+            public int compare(Path a, Path b) {
+                return b.getNameCount() - a.getNameCount();
             }
         });
-        if (dirs != null) {
-            for (File dir : dirs) {
-                scanDirs(dir, list);
-                list.add(dir);
-            }
+        File[] re = new File[dirs.size() + 1];
+        re[0] = dir;
+        for (int i = 0; i < dirs.size(); i++) {
+            re[i + 1] = dirs.get(i).toFile();
         }
+        return re;
     }
 
     /**
@@ -1050,12 +1123,8 @@ public abstract class Files {
      * @return 文件数组
      */
     public static File[] files(File dir, final String suffix) {
-        return dir.listFiles(new FileFilter() {
-            public boolean accept(File f) {
-                return !f.isHidden() && f.isFile() && (null == suffix || f.getName()
-                                                                          .endsWith(suffix));
-            }
-        });
+        return DirectoryWalker.of(dir).suffix(suffix).mode(LsMode.FILE).skipHidden(true).maxDepth(1)
+                              .listFiles();
     }
 
     /**
@@ -1069,22 +1138,22 @@ public abstract class Files {
         return isEquals(f1, f2);
     }
 
+    /**
+     * 先写入 .new 文件并 fsync，再原子地替换原文件并 fsync 所在目录。
+     * 崩溃后文件要么是旧内容要么是新内容。频繁更新的状态文件可以用 {@link DurableFile}
+     *
+     * @param f   文件
+     * @param obj 内容对象，同 {@link #write(File, Object)}
+     * @return 是否替换成功
+     */
     public static boolean copyOnWrite(File f, Object obj) {
         File tmp = new File(f.getAbsolutePath() + ".new");
-        File tmp2 = new File(f.getAbsolutePath() + ".old");
-        tmp2.delete();
         try {
             write(tmp, obj);
-            boolean flag = false;
-            if (f.exists()) {
-                flag = f.renameTo(tmp2);
-            }
-            if (tmp.renameTo(f)) {
-                tmp2.delete();
-                return true;
-            } else if (flag) {
-                tmp2.renameTo(f); // 如果这里也失败的话,起码.old还在...
-            }
+            DurableFile.fsync(tmp.toPath());
+            DurableFile.commit(tmp.toPath(), f.toPath());
+            return true;
+        } catch (IOException e) {
             return false;
         } finally {
             tmp.delete();
@@ -1127,6 +1196,13 @@ public abstract class Files {
         return lines;
     }
 
+    /**
+     * 按行遍历文件，遍历结束或出错时自动关闭文件，提前结束时需要调用 {@link LineIterator#close()}
+     *
+     * @param f       文件
+     * @param charset 编码
+     * @return 行迭代器
+     */
     public static LineIterator lineIterator(File f, String charset) {
         return new LineIterator(f, charset);
     }
@@ -1135,40 +1211,256 @@ public abstract class Files {
         return new LineIterator(f);
     }
 
-    public static class LineIterator implements Iterator<String> {
+    /**
+     * 按行遍历文件
+     *
+     * @param f        文件
+     * @param charset  编码
+     * @param prefetch 是否用后台线程预读，读取和解码与调用方的处理并行
+     * @return 行迭代器
+     */
+    public static LineIterator lineIterator(File f, String charset, boolean prefetch) {
+        return new LineIterator(Streams.fileInr(f, charset), prefetch);
+    }
 
-        BufferedReader br = null;
-        String currentLine;
-        boolean hasData;
+    /**
+     * 文件所有行的 Stream，需要关闭 (try-with-resources)，遍历结束时也会自动关闭文件
+     *
+     * @param f 文件
+     * @return 行的 Stream
+     */
+    public static Stream<String> lines(File f) {
+        return new LineIterator(f).stream();
+    }
+
+    public static Stream<String> lines(File f, String charset) {
+        return new LineIterator(f, charset).stream();
+    }
+
+    /**
+     * @param f        文件
+     * @param charset  编码
+     * @param prefetch 是否用后台线程预读
+     * @return 行的 Stream，需要关闭
+     * @see #lineIterator(File, String, boolean)
+     */
+    public static Stream<String> lines(File f, String charset, boolean prefetch) {
+        return lineIterator(f, charset, prefetch).stream();
+    }
+
+    /**
+     * 以内存映射方式按行扫描大文件，可以切分后并行处理，用完需要关闭
+     *
+     * @param f 文件
+     * @return 扫描器
+     * @see MappedLineScanner
+     */
+    public static MappedLineScanner lineScanner(File f) {
+        try {
+            return MappedLineScanner.open(f);
+        } catch (IOException e) {
+            throw Exceptions.wrapThrow(e);
+        }
+    }
+
+    /**
+     * 按行遍历一个文本流。
+     * <p>
+     * {@link #hasNext()} 可以重复调用，读到末尾返回 false 并关闭输入流；读取出错时关闭输入流并抛出异常。
+     * 没有遍历完就不再使用时需要调用 {@link #close()}，可以用 try-with-resources。
+     * <p>
+     * 开启预读时，后台线程每次读取并解码 {@link #PREFETCH_BATCH} 行，最多领先调用方
+     * {@link #PREFETCH_DEPTH} 批，读取和调用方的处理可以并行。非线程安全。
+     */
+    public static class LineIterator implements Iterator<String>, Closeable {
+
+        /**
+         * 预读时每批的行数
+         */
+        public static final int PREFETCH_BATCH = 1024;
+
+        /**
+         * 预读时最多缓存的批数
+         */
+        public static final int PREFETCH_DEPTH = 4;
+
+        private static final List<String> EOF = Collections.emptyList();
+
+        private static final ThreadFactory PREFETCH_THREADS = new NamedThreadFactory("LineIterator-prefetch", true);
+
+        final BufferedReader br;
+        String  nextLine;
+        boolean finished;
+
+        private final Prefetcher prefetcher;
+        private       List<String> batch = EOF;
+        private       int          index;
 
         public LineIterator(File f) {
-            br = Streams.buffr(Streams.fileInr(f));
+            this(Streams.fileInr(f), false);
         }
 
         public LineIterator(File f, String charset) {
-            br = Streams.buffr(Streams.fileInr(f, charset));
+            this(Streams.fileInr(f, charset), false);
+        }
+
+        /**
+         * @param reader   文本流，遍历结束或 close 时关闭
+         * @param prefetch 是否用后台线程预读
+         */
+        public LineIterator(Reader reader, boolean prefetch) {
+            br = reader instanceof BufferedReader ? (BufferedReader) reader : Streams.buffr(reader);
+            if (prefetch) {
+                prefetcher = new Prefetcher(br);
+                PREFETCH_THREADS.newThread(prefetcher).start();
+            } else {
+                prefetcher = null;
+            }
         }
 
         @Override
         public boolean hasNext() {
+            if (nextLine != null) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
             try {
-                currentLine = br.readLine();
-                hasData = true;
+                nextLine = prefetcher != null ? takeLine() : br.readLine();
             } catch (IOException e) {
-                Streams.safeClose(br);
-                hasData = false;
+                close();
+                throw Exceptions.wrapThrow(e);
             }
-            return hasData;
+            if (nextLine == null) {
+                close();
+                return false;
+            }
+            return true;
         }
 
         @Override
         public String next() {
-            if (hasData) {
-                hasData = false;
-                return currentLine;
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = nextLine;
+            nextLine = null;
+            return line;
+        }
+
+        private String takeLine() throws IOException {
+            if (index == batch.size()) {
+                try {
+                    batch = prefetcher.queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw Exceptions.wrapThrow(e);
+                }
+                index = 0;
+                if (batch == EOF) {
+                    if (prefetcher.error != null) {
+                        throw prefetcher.error;
+                    }
+                    return null;
+                }
+            }
+            return batch.get(index++);
+        }
+
+        /**
+         * @return 剩余行的 Stream，关闭 Stream 时关闭本迭代器
+         */
+        public Stream<String> stream() {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                    this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                                .onClose(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        close();
+                                    }
+                                });
+        }
+
+        /**
+         * 关闭输入流，可以重复调用。开启预读时由后台线程在退出时关闭
+         */
+        @Override
+        public void close() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            nextLine = null;
+            if (prefetcher != null) {
+                prefetcher.stop();
             } else {
-                throw new RuntimeException("No Data");
+                Streams.safeClose(br);
+            }
+        }
+    }
+
+    /**
+     * {@link LineIterator} 的后台预读，读到末尾或出错时放入 EOF，被停止或退出时关闭输入流
+     */
+    private static final class Prefetcher implements Runnable {
+
+        final BlockingQueue<List<String>> queue =
+                new ArrayBlockingQueue<List<String>>(LineIterator.PREFETCH_DEPTH);
+
+        private final BufferedReader br;
+
+        volatile IOException error;
+
+        private volatile boolean stopped;
+
+        Prefetcher(BufferedReader br) {
+            this.br = br;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<String> batch;
+                do {
+                    batch = new ArrayList<String>(LineIterator.PREFETCH_BATCH);
+                    String line;
+                    while (batch.size() < LineIterator.PREFETCH_BATCH && (line = br.readLine()) != null) {
+                        batch.add(line);
+                    }
+                    if (!batch.isEmpty() && !put(batch)) {
+                        return;
+                    }
+                } while (batch.size() == LineIterator.PREFETCH_BATCH);
+                put(LineIterator.EOF);
+            } catch (IOException e) {
+                error = e;
+                put(LineIterator.EOF);
+            } finally {
+                Streams.safeClose(br);
+            }
+        }
+
+        /**
+         * @return 被停止时返回 false
+         */
+        private boolean put(List<String> batch) {
+            try {
+                while (!stopped) {
+                    if (queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+            return false;
+        }
+
+        void stop() {
+            stopped = true;
+            queue.clear();
         }
     }
 }
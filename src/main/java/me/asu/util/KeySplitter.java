@@ -0,0 +1,122 @@
+package me.asu.util;
+
+import java.math.BigInteger;
+
+/**
+ * {@link Bytes#split(byte[], byte[], int)} 等方法的实现：把两个键补齐到相同长度 L 后看作 L 字节的无符号大端整数，
+ * 把 [a, b] 平均分成 num + 1 段，第 i 个分割点为 a + (b - a) / (num + 1) * i。
+ * <p>
+ * L 不超过 8 时用 long 的无符号运算，不创建 BigInteger；分割点直接写入调用方的数组。
+ */
+final class KeySplitter {
+
+    /**
+     * 分割点的长度
+     */
+    final int length;
+
+    final int num;
+
+    private final byte[] aPadded;
+    private final byte[] bPadded;
+
+    private final long start;
+    private final long interval;
+
+    private final BigInteger startBI;
+    private final BigInteger intervalBI;
+
+    private KeySplitter(byte[] aPadded, byte[] bPadded, int num, long start, long interval,
+            BigInteger startBI, BigInteger intervalBI) {
+        this.length = aPadded.length;
+        this.num = num;
+        this.aPadded = aPadded;
+        this.bPadded = bPadded;
+        this.start = start;
+        this.interval = interval;
+        this.startBI = startBI;
+        this.intervalBI = intervalBI;
+    }
+
+    /**
+     * @return 范围太小无法分割时返回 null
+     * @throws IllegalArgumentException b &lt;= a 或 num &lt;= 0
+     */
+    static KeySplitter of(byte[] a, byte[] b, int num) {
+        byte[] aPadded;
+        byte[] bPadded;
+        if (a.length < b.length) {
+            aPadded = Bytes.padTail(a, b.length - a.length);
+            bPadded = b;
+        } else if (b.length < a.length) {
+            aPadded = a;
+            bPadded = Bytes.padTail(b, a.length - b.length);
+        } else {
+            aPadded = a;
+            bPadded = b;
+        }
+        if (Bytes.compareTo(aPadded, bPadded) >= 0) {
+            throw new IllegalArgumentException("b <= a");
+        }
+        if (num <= 0) {
+            throw new IllegalArgumentException("num cannot be < 0");
+        }
+        if (aPadded.length <= Bytes.SIZEOF_LONG) {
+            long start = toUnsignedLong(aPadded);
+            long diff = toUnsignedLong(bPadded) - start;
+            long splits = num + 1L;
+            if (Long.compareUnsigned(diff, splits) < 0) {
+                return null;
+            }
+            return new KeySplitter(aPadded, bPadded, num, start,
+                    Long.divideUnsigned(diff, splits), null, null);
+        }
+        byte[] prependHeader = {1, 0};
+        BigInteger startBI = new BigInteger(Bytes.add(prependHeader, aPadded));
+        BigInteger stopBI = new BigInteger(Bytes.add(prependHeader, bPadded));
+        BigInteger diffBI = stopBI.subtract(startBI);
+        BigInteger splitsBI = BigInteger.valueOf(num + 1);
+        if (diffBI.compareTo(splitsBI) < 0) {
+            return null;
+        }
+        return new KeySplitter(aPadded, bPadded, num, 0, 0, startBI, diffBI.divide(splitsBI));
+    }
+
+    private static long toUnsignedLong(byte[] key) {
+        long v = 0;
+        for (byte b : key) {
+            v = (v << 8) | (b & 0xff);
+        }
+        return v;
+    }
+
+    /**
+     * 把第 i 个分割点 (0 为 a，num + 1 为 b，均已补齐) 写入 dst[off, off + length)
+     */
+    void write(int i, byte[] dst, int off) {
+        if (i == 0) {
+            System.arraycopy(aPadded, 0, dst, off, length);
+        } else if (i == num + 1) {
+            System.arraycopy(bPadded, 0, dst, off, length);
+        } else if (startBI == null) {
+            // interval * i <= b - a，不会溢出
+            long v = start + interval * i;
+            for (int j = off + length - 1; j >= off; j--) {
+                dst[j] = (byte) v;
+                v >>>= 8;
+            }
+        } else {
+            byte[] cur = startBI.add(intervalBI.multiply(BigInteger.valueOf(i))).toByteArray();
+            System.arraycopy(cur, cur.length - length, dst, off, length);
+        }
+    }
+
+    /**
+     * @return 第 i 个分割点的新数组
+     */
+    byte[] get(int i) {
+        byte[] re = new byte[length];
+        write(i, re, 0);
+        return re;
+    }
+}
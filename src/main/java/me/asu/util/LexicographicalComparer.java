@@ -0,0 +1,103 @@
+package me.asu.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import me.asu.lang.unsafe.UnsafeUpdater;
+
+/**
+ * {@link Bytes#compareTo(byte[], int, int, byte[], int, int)} 等方法的实现，启动时选定：
+ * <ol>
+ * <li>JDK 9+ 使用 {@code Arrays.mismatch(byte[], int, int, byte[], int, int)}，JIT 会将其向量化；</li>
+ * <li>否则在允许非对齐访问的平台上用 {@code sun.misc.Unsafe} 每次读取 8 个字节作为 long 比较；</li>
+ * <li>都不可用时逐字节比较。</li>
+ * </ol>
+ */
+final class LexicographicalComparer {
+
+    private static final MethodHandle MISMATCH = findMismatch();
+
+    private static final sun.misc.Unsafe UNSAFE = MISMATCH == null && unaligned()
+            ? UnsafeUpdater.getUnsafe() : null;
+
+    private static final long BYTE_ARRAY_BASE_OFFSET =
+            UNSAFE == null ? 0 : UNSAFE.arrayBaseOffset(byte[].class);
+
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private LexicographicalComparer() {
+    }
+
+    private static MethodHandle findMismatch() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Arrays.class, "mismatch",
+                    MethodType.methodType(int.class, byte[].class, int.class, int.class,
+                            byte[].class, int.class, int.class));
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static boolean unaligned() {
+        String arch = System.getProperty("os.arch", "");
+        return arch.equals("amd64") || arch.equals("x86_64") || arch.equals("i386")
+                || arch.equals("x86") || arch.equals("aarch64") || arch.equals("ppc64le");
+    }
+
+    /**
+     * @return 当前使用的实现: mismatch, unsafe 或 java
+     */
+    static String implementation() {
+        return MISMATCH != null ? "mismatch" : UNSAFE != null ? "unsafe" : "java";
+    }
+
+    /**
+     * 找出 a[aOff, aOff + len) 与 b[bOff, bOff + len) 第一个不同的字节
+     *
+     * @return 相对下标，完全相同时返回 -1
+     * @throws ArrayIndexOutOfBoundsException 范围越界
+     */
+    static int mismatch(byte[] a, int aOff, byte[] b, int bOff, int len) {
+        if (MISMATCH != null) {
+            try {
+                return (int) MISMATCH.invokeExact(a, aOff, aOff + len, b, bOff, bOff + len);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw Exceptions.wrapThrow(t);
+            }
+        }
+        checkRange(a, aOff, len);
+        checkRange(b, bOff, len);
+        int i = 0;
+        if (UNSAFE != null) {
+            long aBase = BYTE_ARRAY_BASE_OFFSET + aOff;
+            long bBase = BYTE_ARRAY_BASE_OFFSET + bOff;
+            for (int n = len & ~7; i < n; i += 8) {
+                long x = UNSAFE.getLong(a, aBase + i);
+                long y = UNSAFE.getLong(b, bBase + i);
+                if (x != y) {
+                    // 第一个不同的字节: 小端是最低的不同位所在字节，大端是最高的
+                    int bit = LITTLE_ENDIAN ? Long.numberOfTrailingZeros(x ^ y)
+                            : Long.numberOfLeadingZeros(x ^ y);
+                    return i + (bit >>> 3);
+                }
+            }
+        }
+        for (; i < len; i++) {
+            if (a[aOff + i] != b[bOff + i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void checkRange(byte[] array, int off, int len) {
+        if (off < 0 || len < 0 || off > array.length - len) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "off: " + off + ", len: " + len + ", length: " + array.length);
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package me.asu.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * 基于内存映射的按行扫描，用于很大的文本文件 (例如每天几十 GB 的日志)。
+ * <p>
+ * 文件按窗口映射 (默认 64 MiB)，直接在映射的字节中找换行符，每次读取 8 个字节比较；
+ * 每一行以 {@link Line} 视图交给调用方，不复制字节，也不创建 String。
+ * 行以 '\n' 分隔，行尾的 '\r' 会去掉，与 {@link java.io.BufferedReader#readLine()} 一致，
+ * 文件以换行符结尾时最后没有空行。
+ * <p>
+ * {@link #segments(int)} 把文件切成按行对齐的若干段，可以分给不同线程；
+ * {@link #collect(ForkJoinPool, Supplier, BiConsumer, BinaryOperator)} 在 fork-join 池上自动切分并合并结果。
+ * <p>
+ * 映射的内存在 GC 回收后才释放，传给回调的 {@link Line} 只在回调期间有效，需要保留时用 {@link Line#toBytes()} 复制。
+ *
+ * <pre>
+ * try (MappedLineScanner scanner = MappedLineScanner.open(path)) {
+ *     long errors = scanner.collect(ForkJoinPool.commonPool(), ...);
+ * }
+ * </pre>
+ */
+public final class MappedLineScanner implements Closeable {
+
+    /**
+     * 默认映射窗口大小
+     */
+    public static final int DEFAULT_WINDOW = 64 * 1024 * 1024;
+
+    /**
+     * 一行的最大长度，也是最大的映射窗口
+     */
+    private static final int MAX_WINDOW = Integer.MAX_VALUE - 8;
+
+    /**
+     * 并行扫描时不再切分的段大小
+     */
+    private static final long SPLIT_THRESHOLD = 16 * 1024 * 1024;
+
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final FileChannel channel;
+    private final long        size;
+    private final Charset     charset;
+    private final int         window;
+
+    private MappedLineScanner(FileChannel channel, Charset charset, int window) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.charset = charset;
+        this.window = window;
+    }
+
+    /**
+     * 以 UTF-8 打开文件
+     */
+    public static MappedLineScanner open(Path path) throws IOException {
+        return open(path, StandardCharsets.UTF_8, DEFAULT_WINDOW);
+    }
+
+    public static MappedLineScanner open(File file) throws IOException {
+        return open(file.toPath());
+    }
+
+    /**
+     * @param path    文件
+     * @param charset {@link Line#decode()} 使用的编码，必须兼容 ASCII 的换行符 (UTF-8、GBK、ISO-8859-1 等)
+     * @param window  映射窗口大小
+     */
+    public static MappedLineScanner open(Path path, Charset charset, int window) throws IOException {
+        if (window < 4096) {
+            throw new IllegalArgumentException("window must >= 4096: " + window);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedLineScanner(channel, charset, window);
+        } catch (IOException e) {
+            Streams.safeClose(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * @return 打开时文件的大小，之后追加的内容不会被扫描
+     */
+    public long size() {
+        return size;
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 处理一行
+     */
+    public interface LineHandler {
+
+        /**
+         * @param line 当前行，只在本次调用期间有效
+         */
+        void handle(Line line);
+    }
+
+    /**
+     * 在调用线程中按顺序扫描所有行
+     */
+    public void forEachLine(LineHandler handler) throws IOException {
+        scan(0, size, handler);
+    }
+
+    /**
+     * 在 fork-join 池上并行扫描所有行，handler 会被多个线程同时调用，行的顺序不确定
+     */
+    public void forEachLine(ForkJoinPool pool, final LineHandler handler) throws IOException {
+        collect(pool, new Supplier<LineHandler>() {
+            @Override
+            public LineHandler get() {
+                return handler;
+            }
+        }, new BiConsumer<LineHandler, Line>() {
+            @Override
+            public void accept(LineHandler h, Line line) {
+                h.handle(line);
+            }
+        }, new BinaryOperator<LineHandler>() {
+            @Override
+            public LineHandler apply(LineHandler a, LineHandler b) {
+                return a;
+            }
+        });
+    }
+
+    /**
+     * 在 fork-join 池上并行扫描，文件按行对齐递归切分，每一段用 supplier 创建自己的结果，
+     * 由 accumulator 累加该段的行，最后用 combiner 按文件中的先后顺序两两合并
+     *
+     * @param pool        fork-join 池
+     * @param supplier    创建每一段的结果
+     * @param accumulator 把一行累加到结果中，同一个结果只会被一个线程访问
+     * @param combiner    合并前后两段的结果
+     * @param <A>         结果类型
+     * @return 合并后的结果
+     */
+    public <A> A collect(ForkJoinPool pool, Supplier<A> supplier, BiConsumer<A, ? super Line> accumulator,
+                         BinaryOperator<A> combiner) throws IOException {
+        try {
+            return pool.invoke(new ScanTask<A>(0, size, supplier, accumulator, combiner));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ScanTask<A> extends RecursiveTask<A> {
+
+        private static final long serialVersionUID = -1553219418069870527L;
+
+        private final long                            start;
+        private final long                            end;
+        private final Supplier<A>                     supplier;
+        private final BiConsumer<A, ? super Line>     accumulator;
+        private final BinaryOperator<A>               combiner;
+
+        ScanTask(long start, long end, Supplier<A> supplier, BiConsumer<A, ? super Line> accumulator,
+                 BinaryOperator<A> combiner) {
+            this.start = start;
+            this.end = end;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            try {
+                long mid = end - start > SPLIT_THRESHOLD ? lineStart(start + (end - start) / 2, end) : end;
+                if (mid >= end) {
+                    final A result = supplier.get();
+                    scan(start, end, new LineHandler() {
+                        @Override
+                        public void handle(Line line) {
+                            accumulator.accept(result, line);
+                        }
+                    });
+                    return result;
+                }
+                ScanTask<A> left = new ScanTask<A>(start, mid, supplier, accumulator, combiner);
+                left.fork();
+                A right = new ScanTask<A>(mid, end, supplier, accumulator, combiner).compute();
+                return combiner.apply(left.join(), right);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * 把文件切成最多 n 段，每段从行首开始，到下一段的行首结束，段数可能因为行太长而少于 n
+     *
+     * @param n 段数
+     * @return 按文件顺序排列的段
+     */
+    public List<Segment> segments(int n) throws IOException {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must > 0: " + n);
+        }
+        List<Segment> re = new ArrayList<Segment>(n);
+        long start = 0;
+        for (int i = 1; i <= n && start < size; i++) {
+            long end = i == n ? size : lineStart(Math.max(start, size / n * i), size);
+            if (end > start) {
+                re.add(new Segment(start, end));
+                start = end;
+            }
+        }
+        return re;
+    }
+
+    /**
+     * 文件中按行对齐的一段 [start, end)
+     */
+    public final class Segment {
+
+        private final long start;
+        private final long end;
+
+        Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long start() {
+            return start;
+        }
+
+        public long end() {
+            return end;
+        }
+
+        /**
+         * 按顺序扫描本段的所有行，不同段可以在不同线程中同时扫描
+         */
+        public void forEachLine(LineHandler handler) throws IOException {
+            scan(start, end, handler);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + ")";
+        }
+    }
+
+    /**
+     * @return 不小于 pos 的第一个行首 (pos 为 0 或前一个字节是换行符)，到 end 都没有时返回 end
+     */
+    private long lineStart(long pos, long end) throws IOException {
+        if (pos <= 0) {
+            return 0;
+        }
+        ByteBuffer buf = BufferPool.direct().acquire(8192);
+        try {
+            long p = pos - 1;
+            while (p < end) {
+                buf.clear();
+                buf.limit((int) Math.min(buf.capacity(), end - p));
+                int n = channel.read(buf, p);
+                if (n <= 0) {
+                    break;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (buf.get(i) == '\n') {
+                        return p + i + 1;
+                    }
+                }
+                p += n;
+            }
+            return end;
+        } finally {
+            BufferPool.direct().release(buf);
+        }
+    }
+
+    /**
+     * 扫描 [start, end)，start 必须是行首
+     */
+    private void scan(long start, long end, LineHandler handler) throws IOException {
+        Line line = new Line(charset);
+        long pos = start;
+        int w = window;
+        while (pos < end) {
+            int len = (int) Math.min(end - pos, w);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            boolean last = pos + len == end;
+            int lineStart = 0;
+            int nl;
+            while ((nl = indexOfNewline(buf, lineStart, len)) >= 0) {
+                line.reset(buf, pos, lineStart, nl);
+                handler.handle(line);
+                lineStart = nl + 1;
+            }
+            if (last) {
+                if (lineStart < len) {
+                    line.reset(buf, pos, lineStart, len);
+                    handler.handle(line);
+                }
+                return;
+            }
+            if (lineStart == 0) {
+                // 一行比窗口还长，扩大窗口重新映射
+                if (w == MAX_WINDOW) {
+                    throw new IOException("Line too long at " + pos);
+                }
+                w = (int) Math.min(MAX_WINDOW, (long) w << 1);
+            } else {
+                pos += lineStart;
+                w = window;
+            }
+        }
+    }
+
+    /**
+     * 在 buf[from, to) 中找 '\n'，每次比较 8 个字节
+     */
+    private static int indexOfNewline(ByteBuffer buf, int from, int to) {
+        int i = from;
+        for (int n = to - 8; i <= n; i += 8) {
+            long x = buf.getLong(i) ^ NEWLINES;
+            // 最低的为 0 的字节对应的最高位会被置位，其上的字节可能误报，只取最低的
+            long t = (x - LOW_BITS) & ~x & HIGH_BITS;
+            if (t != 0) {
+                return i + (Long.numberOfTrailingZeros(t) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buf.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 映射内存中一行的视图 (不含换行符)。
+     * <p>
+     * 作为 {@link CharSequence} 时每个字节对应一个字符 (ISO-8859-1)，适合对 ASCII 内容做匹配；
+     * 按文件编码得到字符串用 {@link #decode()}。
+     */
+    public static final class Line implements CharSequence {
+
+        private final Charset charset;
+
+        private ByteBuffer buf;
+        private long       base;
+        private int        from;
+        private int        to;
+
+        Line(Charset charset) {
+            this.charset = charset;
+        }
+
+        private Line(Charset charset, ByteBuffer buf, long base, int from, int to) {
+            this.charset = charset;
+            this.buf = buf;
+            this.base = base;
+            this.from = from;
+            this.to = to;
+        }
+
+        void reset(ByteBuffer buf, long base, int from, int to) {
+            if (to > from && buf.get(to - 1) == '\r') {
+                to--;
+            }
+            this.buf = buf;
+            this.base = base;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return 行首在文件中的位置
+         */
+        public long position() {
+            return base + from;
+        }
+
+        /**
+         * @return 字节数
+         */
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        public byte byteAt(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + length());
+            }
+            return buf.get(from + index);
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (byteAt(index) & 0xff);
+        }
+
+        /**
+         * @return 同一段内存上的视图，与本行一样只在回调期间有效
+         */
+        @Override
+        public Line subSequence(int start, int end) {
+            if (start < 0 || end > to - from || start > end) {
+                throw new IndexOutOfBoundsException(
+                        "start: " + start + ", end: " + end + ", length: " + length());
+            }
+            return new Line(charset, buf, base, from + start, from + end);
+        }
+
+        /**
+         * @return b 第一次出现的下标，没有返回 -1
+         */
+        public int indexOf(byte b, int fromIndex) {
+            for (int i = from + Math.max(0, fromIndex); i < to; i++) {
+                if (buf.get(i) == b) {
+                    return i - from;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return 本行是否以 ASCII 字符串 prefix 开头
+         */
+        public boolean startsWith(CharSequence prefix) {
+            int n = prefix.length();
+            if (n > to - from) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if ((buf.get(from + i) & 0xff) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 复制到 dst[off, off + length())
+         */
+        public void copyTo(byte[] dst, int off) {
+            ByteBuffer dup = buf.duplicate();
+            dup.limit(to).position(from);
+            dup.get(dst, off, to - from);
+        }
+
+        public byte[] toBytes() {
+            byte[] re = new byte[to - from];
+            copyTo(re, 0);
+            return re;
+        }
+
+        /**
+         * @return 按文件编码解码的字符串
+         */
+        public String decode() {
+            return decode(charset);
+        }
+
+        public String decode(Charset cs) {
+            ByteBuffer dup = buf.duplicate();
+            dup.limit(to).position(from);
+            return cs.decode(dup).toString();
+        }
+
+        /**
+         * @return 与 {@link #charAt(int)} 一致的 ISO-8859-1 字符串
+         */
+        @Override
+        public String toString() {
+            return decode(StandardCharsets.ISO_8859_1);
+        }
+    }
+}
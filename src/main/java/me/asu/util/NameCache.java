@@ -0,0 +1,104 @@
+package me.asu.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 命名转换结果的缓存。
+ * <p>
+ * 数据库列名、Bean 属性名等数量有限却被反复转换，缓存后同一个名字只转换一次，
+ * 之后只是一次 {@link ConcurrentHashMap#get(Object)}，不再创建 StringBuilder 和新字符串。
+ * 缓存有上限，超过上限时整体清空重新积累，防止名字无限增长时占满内存。线程安全。
+ * <pre>
+ * NameCache cache = new NameCache() {
+ *     protected String convert(String name) {
+ *         return name.toUpperCase();
+ *     }
+ * };
+ * </pre>
+ */
+public abstract class NameCache {
+
+    /**
+     * 默认最多缓存的名字个数
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * {@link Strings#toCamelCase(CharSequence)} 的缓存，供 CamelCaseMap 等共用
+     */
+    private static final NameCache CAMEL_CASE = new NameCache() {
+        @Override
+        protected String convert(String name) {
+            return Strings.toCamelCase(name);
+        }
+    };
+
+    private final int maxSize;
+
+    private final ConcurrentHashMap<String, String> cache;
+
+    public NameCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize 最多缓存的名字个数
+     */
+    public NameCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must > 0!");
+        }
+        this.maxSize = maxSize;
+        this.cache = new ConcurrentHashMap<String, String>(Math.min(maxSize, 256));
+    }
+
+    /**
+     * 带缓存的 {@link Strings#toCamelCase(CharSequence)}
+     *
+     * @param name 下划线方式命名的字符串
+     * @return 驼峰式命名的字符串
+     */
+    public static String camelCase(String name) {
+        return CAMEL_CASE.get(name);
+    }
+
+    /**
+     * 取得转换后的名字，未缓存时转换并缓存
+     *
+     * @param name 名字，null 时返回 null
+     * @return 转换后的名字
+     */
+    public String get(String name) {
+        if (name == null) {
+            return null;
+        }
+        String re = cache.get(name);
+        if (re == null) {
+            re = convert(name);
+            if (cache.size() >= maxSize) {
+                cache.clear();
+            }
+            String old = cache.putIfAbsent(name, re);
+            if (old != null) {
+                re = old;
+            }
+        }
+        return re;
+    }
+
+    /**
+     * 转换名字，同一个名字的结果必须相同
+     *
+     * @param name 名字，不为 null
+     * @return 转换后的名字
+     */
+    protected abstract String convert(String name);
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
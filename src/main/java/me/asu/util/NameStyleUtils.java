@@ -11,10 +11,25 @@ package me.asu.util;
  */
 public class NameStyleUtils {
 
+    private static final NameCache SNAKE_NAMES = new NameCache() {
+        @Override
+        protected String convert(String name) {
+            return toSnakeName(name);
+        }
+    };
+
+    private static final NameCache CAMEL_NAMES = new NameCache() {
+        @Override
+        protected String convert(String name) {
+            return toCamelName(name);
+        }
+    };
+
     /**
      * 将驼峰式命名的字符串转换为下划线蛇形方式。
      * 如果转换前的驼峰式命名的字符串为空，则返回空字符串。</br>
-     * 例如：helloWorld->hello_world
+     * 例如：helloWorld->hello_world<br>
+     * 转换结果会被缓存。
      *
      * @param name 转换前的驼峰式命名的字符串
      * @return 转换后下划线大写方式命名的字符串
@@ -23,7 +38,10 @@ public class NameStyleUtils {
         if (Strings.isBlank(name)) {
             return "";
         }
+        return SNAKE_NAMES.get(name);
+    }
 
+    private static String toSnakeName(String name) {
         StringBuilder result = new StringBuilder();
         char[] chars = name.toCharArray();
         // 循环处理其余字符
@@ -43,7 +61,8 @@ public class NameStyleUtils {
     /**
      * 将下划线蛇形方式命名的字符串转换为驼峰式。
      * 如果转换前的下划线蛇形方式命名的字符串为空，则返回空字符串。</br>
-     * 例如：HELLO_WORLD->HelloWorld
+     * 例如：HELLO_WORLD->HelloWorld<br>
+     * 转换结果会被缓存。
      *
      * @param name 转换前的下划线大写方式命名的字符串
      * @return 转换后的驼峰式命名的字符串
@@ -55,6 +74,10 @@ public class NameStyleUtils {
             // 不含下划线
             return name;
         }
+        return CAMEL_NAMES.get(name);
+    }
+
+    private static String toCamelName(String name) {
         StringBuilder result = new StringBuilder();
         // 用下划线将原始字符串分割
         char[] chars = name.toCharArray();
@@ -1,6 +1,10 @@
 package me.asu.util;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -16,6 +20,8 @@ public abstract class Streams {
 
     private static final int BUF_SIZE = 8192;
 
+    private static final int CHANNEL_BUF_SIZE = 64 * 1024;
+
     /**
      * 判断两个输入流是否严格相等
      */
@@ -76,13 +82,17 @@ public abstract class Streams {
     }
 
     /**
-     * 将输入流写入一个输出流。
+     * 将输入流写入一个输出流。缓冲块从 {@link BufferPool#heap()} 中取，用完归还
+     * <p/>
+     * 两端都是 {@link FileInputStream}/{@link FileOutputStream} 且输入可以定位 (普通文件) 时先用
+     * {@link FileChannel#transferTo} 在内核中拷贝，不经过用户态缓冲区，剩余的部分 (例如 /proc 下大小为 0 的文件)
+     * 再按块拷贝；管道、标准输入等不能定位的输入直接按块拷贝
      * <p/>
      * <b style=color:red>注意</b>，它并不会关闭输入/出流
      *
      * @param ops        输出流
      * @param ins        输入流
-     * @param bufferSize 缓冲块大小
+     * @param bufferSize 缓冲块大小，会向上取整到 2 的幂
      * @return 写入的字节数
      */
     public static long write(OutputStream ops, InputStream ins, int bufferSize) throws IOException {
@@ -90,15 +100,105 @@ public abstract class Streams {
             return 0;
         }
 
-        byte[] buf = new byte[bufferSize];
-        int len;
         long bytesCount = 0;
-        while (-1 != (len = ins.read(buf))) {
-            bytesCount += len;
-            ops.write(buf, 0, len);
+        // 子类可能改写了 read/write，只认这两个类本身
+        if (ins.getClass() == FileInputStream.class && ops.getClass() == FileOutputStream.class) {
+            bytesCount = transferIfSeekable(((FileInputStream) ins).getChannel(),
+                                            ((FileOutputStream) ops).getChannel());
+        }
+
+        byte[] buf = BufferPool.heap().acquire(bufferSize);
+        try {
+            int len;
+            while (-1 != (len = ins.read(buf))) {
+                bytesCount += len;
+                ops.write(buf, 0, len);
+            }
+            ops.flush();
+            return bytesCount;
+        } finally {
+            BufferPool.heap().release(buf);
+        }
+    }
+
+    /**
+     * 用 {@link FileChannel#transferTo} 把 src 从当前位置到文件末尾的内容写入 dst，
+     * 两个通道的位置都会前移。拷贝过程中文件变短时提前结束
+     * <p/>
+     * <b style=color:red>注意</b>，它并不会关闭通道
+     *
+     * @param src 源文件通道
+     * @param dst 目标通道
+     * @return 写入的字节数
+     */
+    public static long transfer(FileChannel src, WritableByteChannel dst) throws IOException {
+        return transfer(src, dst, src.position(), src.size());
+    }
+
+    /**
+     * 同 {@link #transfer(FileChannel, WritableByteChannel)}，但 src 不能定位 (管道、FIFO、标准输入等) 时
+     * 什么也不做，返回 0，由调用方按块读取
+     */
+    private static long transferIfSeekable(FileChannel src, WritableByteChannel dst) throws IOException {
+        long start;
+        long size;
+        try {
+            start = src.position();
+            size = src.size();
+        } catch (IOException e) {
+            // 还没有读写任何数据，可以放心回退
+            return 0;
+        }
+        return transfer(src, dst, start, size);
+    }
+
+    private static long transfer(FileChannel src, WritableByteChannel dst, long start, long size)
+            throws IOException {
+        long pos = start;
+        while (pos < size) {
+            long n = src.transferTo(pos, size - pos, dst);
+            if (n <= 0) {
+                break;
+            }
+            pos += n;
+        }
+        src.position(pos);
+        return pos - start;
+    }
+
+    /**
+     * 将一个通道的内容全部写入另一个通道，直到 src 结束。
+     * <p/>
+     * src 是可以定位的 {@link FileChannel} 时先用 {@link #transfer(FileChannel, WritableByteChannel)}，
+     * 剩余的部分 (或不能定位的 src 的全部内容) 用 {@link BufferPool#direct()} 中的直接缓冲区拷贝。只支持阻塞模式的通道
+     * <p/>
+     * <b style=color:red>注意</b>，它并不会关闭通道
+     *
+     * @param dst 目标通道
+     * @param src 源通道
+     * @return 写入的字节数
+     */
+    public static long write(WritableByteChannel dst, ReadableByteChannel src) throws IOException {
+        if (null == dst || null == src) {
+            return 0;
+        }
+        long bytesCount = 0;
+        if (src instanceof FileChannel) {
+            bytesCount = transferIfSeekable((FileChannel) src, dst);
+        }
+        ByteBuffer buf = BufferPool.direct().acquire(CHANNEL_BUF_SIZE);
+        try {
+            while (-1 != src.read(buf)) {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    bytesCount += dst.write(buf);
+                }
+                buf.clear();
+            }
+            return bytesCount;
+        } finally {
+            BufferPool.direct().release(buf);
         }
-        ops.flush();
-        return bytesCount;
     }
 
     /**
@@ -230,21 +330,75 @@ public abstract class Streams {
     }
 
     /**
-     * 读取一个输入流中所有的字节
+     * 读取一个输入流中所有的字节，直到流结束
+     * <p/>
+     * 以 available() 作为初始大小从 {@link BufferPool#heap()} 中取缓冲区，不够时换更大的，最后复制出结果；
+     * available() 超过 {@link BufferPool#MAX_CAPACITY} 时池不参与，直接读入结果数组
      *
-     * @param ins 输入流，必须支持 available()
+     * @param ins 输入流
      * @return 一个字节数组
      */
     public static byte[] readBytes(InputStream ins) throws IOException {
-        byte[] bytes = new byte[ins.available()];
-        ins.read(bytes);
-        return bytes;
+        int available = ins.available();
+        if (available >= BufferPool.MAX_CAPACITY) {
+            return readLarge(ins, available);
+        }
+        BufferPool<byte[]> pool = BufferPool.heap();
+        // 多要一个字节，正好读满 available() 时不用为了确认结束而换缓冲区
+        byte[] buf = pool.acquire(Math.max(BUF_SIZE, available + 1));
+        try {
+            int n = 0;
+            int len;
+            while (-1 != (len = ins.read(buf, n, buf.length - n))) {
+                n += len;
+                if (n == buf.length) {
+                    if (n == Integer.MAX_VALUE - 8) {
+                        throw new OutOfMemoryError("Required array size too large");
+                    }
+                    byte[] bigger = pool.acquire((int) Math.min(Integer.MAX_VALUE - 8, (long) n << 1));
+                    System.arraycopy(buf, 0, bigger, 0, n);
+                    pool.release(buf);
+                    buf = bigger;
+                }
+            }
+            return java.util.Arrays.copyOf(buf, n);
+        } finally {
+            pool.release(buf);
+        }
+    }
+
+    /**
+     * 大输入 (例如大文件) 直接读入 available 大小的数组，读满后用一次 read() 确认已到结尾，
+     * 只分配一次、不复制；流比 available() 报告的长时再按倍数扩容
+     */
+    private static byte[] readLarge(InputStream ins, int available) throws IOException {
+        byte[] buf = new byte[available];
+        int n = 0;
+        for (; ; ) {
+            if (n < buf.length) {
+                int len = ins.read(buf, n, buf.length - n);
+                if (len < 0) {
+                    return java.util.Arrays.copyOf(buf, n);
+                }
+                n += len;
+            } else {
+                int b = ins.read();
+                if (b < 0) {
+                    return buf;
+                }
+                if (n == Integer.MAX_VALUE - 8) {
+                    throw new OutOfMemoryError("Required array size too large");
+                }
+                buf = java.util.Arrays.copyOf(buf, (int) Math.min(Integer.MAX_VALUE - 8, (long) n << 1));
+                buf[n++] = (byte) b;
+            }
+        }
     }
 
     /**
      * 读取一个输入流中所有的字节，并关闭输入流
      *
-     * @param ins 输入流，必须支持 available()
+     * @param ins 输入流
      * @return 一个字节数组
      */
     public static byte[] readBytesAndClose(InputStream ins) {
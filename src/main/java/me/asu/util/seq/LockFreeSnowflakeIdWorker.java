@@ -0,0 +1,372 @@
+package me.asu.util.seq;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import me.asu.lang.unsafe.FieldUpdaters;
+import me.asu.lang.unsafe.LongFieldUpdater;
+
+/**
+ * 无锁版本的 {@link SnowflakeIdWorker}，默认 ID 布局与其完全相同，也可通过 {@link SnowflakeLayout} 指定。
+ * <p>
+ * 上次时间戳与毫秒内序列被打包进一个 long ({@code timestamp << sequenceBits | sequence})，
+ * 通过 CAS 一次性推进，多个线程不再排队等待同一个监视器。
+ * {@link #nextIds(int)} / {@link #reserve(long[])} 在一次 CAS 中领取同一毫秒内一段连续的序列。
+ * <p>
+ * 容忍时钟偏移模式 ({@code clockTolerant = true})：
+ * <ul>
+ * <li>时间取自 {@link System#nanoTime()}，以构造时的 {@link System#currentTimeMillis()} 为锚点，
+ * 不受 NTP 校时回拨的影响；</li>
+ * <li>毫秒内序列溢出时不再忙等，而是"借用"下一个毫秒，最多领先当前时钟 maxBorrowMillis 毫秒，
+ * 超出后才挂起等待时钟追上；</li>
+ * <li>时钟落后于上次使用的时间戳 (借用或回拨) 时沿用上次的时间戳继续分配，不抛异常。</li>
+ * </ul>
+ * 各分支的执行次数可通过 {@code get*Count()} 获取。
+ */
+public class LockFreeSnowflakeIdWorker implements Serializable {
+
+    private static final long serialVersionUID = -3316384733434734395L;
+
+    private static final LongFieldUpdater<LockFreeSnowflakeIdWorker> STATE_UPDATER =
+            FieldUpdaters.newLongFieldUpdater(MethodHandles.lookup(), LockFreeSnowflakeIdWorker.class,
+                    "state");
+
+    /**
+     * 容忍时钟偏移模式下默认最多借用的毫秒数
+     */
+    public static final long DEFAULT_MAX_BORROW_MILLIS = 1000L;
+
+    /**
+     * 位布局，默认为 {@link SnowflakeLayout#DEFAULT}
+     */
+    private final SnowflakeLayout layout;
+
+    /**
+     * 以下均复制自 layout，避免热路径上的间接访问
+     */
+    private final long twepoch;
+    private final int  sequenceBits;
+    private final long sequenceMask;
+    private final int  timestampLeftShift;
+
+    /**
+     * 数据中心ID与工作机器ID移位后的结果，每次生成ID时直接或上去
+     */
+    private final long node;
+
+    /**
+     * 打包的状态：(上次时间戳 - twepoch) << sequenceBits | 毫秒内最后一个已分配序列。
+     * 初始值 -1 表示上次时间戳为 -1。
+     */
+    volatile long state = -1L;
+
+    /**
+     * 是否启用容忍时钟偏移模式
+     */
+    private final boolean clockTolerant;
+
+    /**
+     * 最多领先当前时钟的毫秒数
+     */
+    private final long maxBorrowMillis;
+
+    /**
+     * 单调时钟锚点：构造 (或反序列化) 时的墙上时间与 nanoTime
+     */
+    private transient long anchorMillis;
+    private transient long anchorNanos;
+
+    private final LongAdder newMillisCount  = new LongAdder();
+    private final LongAdder sameMillisCount = new LongAdder();
+    private final LongAdder borrowCount     = new LongAdder();
+    private final LongAdder behindCount     = new LongAdder();
+    private final LongAdder waitCount       = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param workerId     工作ID (0~31)
+     * @param datacenterId 数据中心ID (0~31)
+     */
+    public LockFreeSnowflakeIdWorker(long workerId, long datacenterId) {
+        this(workerId, datacenterId, false);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param workerId      工作ID (0~31)
+     * @param datacenterId  数据中心ID (0~31)
+     * @param clockTolerant 是否启用容忍时钟偏移模式
+     */
+    public LockFreeSnowflakeIdWorker(long workerId, long datacenterId, boolean clockTolerant) {
+        this(workerId, datacenterId, clockTolerant, DEFAULT_MAX_BORROW_MILLIS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param workerId        工作ID (0~31)
+     * @param datacenterId    数据中心ID (0~31)
+     * @param clockTolerant   是否启用容忍时钟偏移模式
+     * @param maxBorrowMillis 容忍时钟偏移模式下最多领先当前时钟的毫秒数
+     */
+    public LockFreeSnowflakeIdWorker(long workerId, long datacenterId, boolean clockTolerant,
+            long maxBorrowMillis) {
+        this(SnowflakeLayout.DEFAULT, workerId, datacenterId, clockTolerant, maxBorrowMillis);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param layout       位布局
+     * @param workerId     工作ID (0~layout.maxWorkerId)
+     * @param datacenterId 数据中心ID (0~layout.maxDatacenterId)
+     */
+    public LockFreeSnowflakeIdWorker(SnowflakeLayout layout, long workerId, long datacenterId) {
+        this(layout, workerId, datacenterId, false, DEFAULT_MAX_BORROW_MILLIS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param layout          位布局
+     * @param workerId        工作ID (0~layout.maxWorkerId)
+     * @param datacenterId    数据中心ID (0~layout.maxDatacenterId)
+     * @param clockTolerant   是否启用容忍时钟偏移模式
+     * @param maxBorrowMillis 容忍时钟偏移模式下最多领先当前时钟的毫秒数
+     */
+    public LockFreeSnowflakeIdWorker(SnowflakeLayout layout, long workerId, long datacenterId,
+            boolean clockTolerant, long maxBorrowMillis) {
+        if (maxBorrowMillis < 0) {
+            throw new IllegalArgumentException("maxBorrowMillis can't be less than 0");
+        }
+        this.node = layout.node(workerId, datacenterId);
+        this.layout = layout;
+        this.twepoch = layout.getEpoch();
+        this.sequenceBits = layout.getSequenceBits();
+        this.sequenceMask = layout.getSequenceMask();
+        this.timestampLeftShift = layout.getTimestampLeftShift();
+        this.clockTolerant = clockTolerant;
+        this.maxBorrowMillis = maxBorrowMillis;
+        anchor();
+    }
+
+    /**
+     * 获得下一个ID (该方法是线程安全的，且不加锁)
+     *
+     * @return SnowflakeId
+     */
+    public long nextId() {
+        long first = claim(1);
+        return toId(first >> sequenceBits, first & sequenceMask);
+    }
+
+    /**
+     * 获得 n 个ID
+     *
+     * @param n ID 个数
+     * @return SnowflakeId 数组
+     */
+    public long[] nextIds(int n) {
+        long[] ids = new long[n];
+        reserve(ids, 0, n);
+        return ids;
+    }
+
+    /**
+     * 填满 dst，见 {@link #reserve(long[], int, int)}
+     *
+     * @param dst 目标数组
+     */
+    public void reserve(long[] dst) {
+        reserve(dst, 0, dst.length);
+    }
+
+    /**
+     * 领取 len 个ID 写入 dst[off, off + len)。
+     * 每次 CAS 领取同一毫秒内的一段连续序列，同一毫秒内剩余序列不足时，剩下的部分在下一毫秒继续领取。
+     *
+     * @param dst 目标数组
+     * @param off 起始位置
+     * @param len ID 个数
+     */
+    public void reserve(long[] dst, int off, int len) {
+        if (off < 0 || len < 0 || off + len > dst.length) {
+            throw new IndexOutOfBoundsException(
+                    String.format("off: %d, len: %d, length: %d", off, len, dst.length));
+        }
+        int end = off + len;
+        while (off < end) {
+            long first = claim(end - off);
+            long timestamp = first >> sequenceBits;
+            long seq = first & sequenceMask;
+            long last = seq + claimable(seq, end - off) - 1;
+            for (; seq <= last; seq++) {
+                dst[off++] = toId(timestamp, seq);
+            }
+        }
+    }
+
+    /**
+     * 领取至多 n 个连续序列，返回 (时间戳 - twepoch) << sequenceBits | 领取到的第一个序列。
+     * 实际领取的个数为 {@link #claimable(long, int)}。
+     */
+    private long claim(int n) {
+        for (; ; ) {
+            // 必须先读状态再读时间，否则并发线程推进的时间戳可能被误判为时钟回退
+            long current = state;
+            long lastTimestamp = current >> sequenceBits;
+            long now = timeGen() - twepoch;
+            long timestamp = now;
+
+            //如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过或者借用了未来的时间
+            if (timestamp < lastTimestamp) {
+                if (!clockTolerant) {
+                    throw new RuntimeException(String.format(
+                            "Clock moved backwards.  Refusing to generate id for %d milliseconds",
+                            lastTimestamp - timestamp));
+                }
+                timestamp = lastTimestamp;
+            }
+
+            long first;
+            boolean borrowed = false;
+            if (timestamp == lastTimestamp) {
+                first = (current & sequenceMask) + 1;
+                //毫秒内序列溢出
+                if (first > sequenceMask) {
+                    if (!clockTolerant) {
+                        //等到下一个毫秒再试
+                        waitCount.increment();
+                        tilNextMillis(lastTimestamp + twepoch);
+                        continue;
+                    }
+                    if (lastTimestamp + 1 - now > maxBorrowMillis) {
+                        //借用的时间已到上限，挂起等待时钟追上
+                        waitCount.increment();
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(
+                                lastTimestamp + 1 - now - maxBorrowMillis));
+                        continue;
+                    }
+                    //借用下一个毫秒
+                    timestamp = lastTimestamp + 1;
+                    first = 0L;
+                    borrowed = true;
+                }
+            } else {
+                //时间戳改变，毫秒内序列重置
+                first = 0L;
+            }
+            long next = (timestamp << sequenceBits) | (first + claimable(first, n) - 1);
+            if (STATE_UPDATER.compareAndSet(this, current, next)) {
+                if (borrowed) {
+                    borrowCount.increment();
+                } else if (timestamp != lastTimestamp) {
+                    newMillisCount.increment();
+                } else {
+                    sameMillisCount.increment();
+                }
+                if (timestamp > now) {
+                    behindCount.increment();
+                }
+                return (timestamp << sequenceBits) | first;
+            }
+        }
+    }
+
+    /**
+     * 从序列 first 开始，本毫秒内最多能领取的个数
+     */
+    private long claimable(long first, int n) {
+        return Math.min(n, sequenceMask - first + 1);
+    }
+
+    private long toId(long timestamp, long sequence) {
+        //移位并通过或运算拼到一起组成64位的ID
+        return (timestamp << timestampLeftShift) | node | sequence;
+    }
+
+    /**
+     * 返回以毫秒为单位的当前时间
+     *
+     * @return 当前时间(毫秒)
+     */
+    protected long timeGen() {
+        if (clockTolerant) {
+            return anchorMillis + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - anchorNanos);
+        }
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * 阻塞到下一个毫秒，直到获得新的时间戳
+     *
+     * @param lastTimestamp 上次生成ID的时间截
+     * @return 当前时间戳
+     */
+    protected long tilNextMillis(long lastTimestamp) {
+        long timestamp = timeGen();
+        while (timestamp <= lastTimestamp) {
+            timestamp = timeGen();
+        }
+        return timestamp;
+    }
+
+    /**
+     * @return 位布局，可用于解码生成的ID
+     */
+    public SnowflakeLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return 时间戳前进到新毫秒的次数
+     */
+    public long getNewMillisCount() {
+        return newMillisCount.sum();
+    }
+
+    /**
+     * @return 在同一毫秒内继续分配序列的次数
+     */
+    public long getSameMillisCount() {
+        return sameMillisCount.sum();
+    }
+
+    /**
+     * @return 序列溢出后借用下一个毫秒的次数 (仅容忍时钟偏移模式)
+     */
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    /**
+     * @return 分配时使用的时间戳领先于当前时钟的次数 (借用或时钟回拨)
+     */
+    public long getBehindCount() {
+        return behindCount.sum();
+    }
+
+    /**
+     * @return 序列溢出后等待时钟前进的次数
+     */
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    private void anchor() {
+        anchorMillis = System.currentTimeMillis();
+        anchorNanos = System.nanoTime();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // nanoTime 只在同一个 JVM 内有意义，反序列化后重新取锚点
+        anchor();
+    }
+}
@@ -23,7 +23,28 @@ public class Sequence {
     }
 
     public String nextToString() {
-        return Hex.encodeHexString(Bytes.toBytes(seq.incrementAndGet()));
+        return Hex.encodeHexString(Bytes.toBytes(next()));
+    }
+
+    /**
+     * 与 {@link #nextToString()} 相同，但把 16 个十六进制字符写入 dst，不分配对象
+     *
+     * @param dst 目标数组
+     * @param off 起始位置
+     * @return 写入后的下一个位置
+     */
+    public int nextToString(char[] dst, int off) {
+        return Hex.encodeHex(next(), dst, off);
+    }
+
+    /**
+     * 与 {@link #nextToString()} 相同，但把 16 个十六进制字符追加到 sb，不分配对象
+     *
+     * @param sb 目标
+     * @return sb
+     */
+    public StringBuilder nextToString(StringBuilder sb) {
+        return Hex.encodeHex(next(), sb);
     }
 
 }
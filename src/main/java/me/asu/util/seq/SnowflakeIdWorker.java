@@ -1,6 +1,7 @@
 
 package me.asu.util.seq;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 
 public class SnowflakeIdWorker implements Serializable {
@@ -8,54 +9,29 @@ public class SnowflakeIdWorker implements Serializable {
     private static final long serialVersionUID = 4970304228204579351L;
     // ==============================Fields===========================================
     /**
-     * 开始时间截 (2018-02-16 即黄帝纪年4716大年初一)
+     * 位布局，默认为 {@link SnowflakeLayout#DEFAULT}
      */
-    private final long twepoch = 1518710400000L;
+    private final SnowflakeLayout layout;
 
     /**
-     * 机器id所占的位数
+     * 开始时间截，默认为 2018-02-16 即黄帝纪年4716大年初一
      */
-    private final long workerIdBits = 5L;
+    private final long twepoch;
 
     /**
-     * 数据标识id所占的位数
+     * 时间截向左移的位数，默认22位(5+5+12)
      */
-    private final long datacenterIdBits = 5L;
+    private final long timestampLeftShift;
 
     /**
-     * 支持的最大机器id，结果是31 (这个移位算法可以很快的计算出几位二进制数所能表示的最大十进制数)
+     * 生成序列的掩码，默认为4095 (0b111111111111=0xfff=4095)
      */
-    private final long maxWorkerId = -1L ^ (-1L << workerIdBits);
+    private final long sequenceMask;
 
     /**
-     * 支持的最大数据标识id，结果是31
+     * 数据中心ID与工作机器ID移位后的结果
      */
-    private final long maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
-
-    /**
-     * 序列在id中占的位数
-     */
-    private final long sequenceBits = 12L;
-
-    /**
-     * 机器ID向左移12位
-     */
-    private final long workerIdShift = sequenceBits;
-
-    /**
-     * 数据标识id向左移17位(12+5)
-     */
-    private final long datacenterIdShift = sequenceBits + workerIdBits;
-
-    /**
-     * 时间截向左移22位(5+5+12)
-     */
-    private final long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
-
-    /**
-     * 生成序列的掩码，这里为4095 (0b111111111111=0xfff=4095)
-     */
-    private final long sequenceMask = -1L ^ (-1L << sequenceBits);
+    private final long node;
 
     /**
      * 工作机器ID(0~31)
@@ -86,16 +62,22 @@ public class SnowflakeIdWorker implements Serializable {
      * @param datacenterId 数据中心ID (0~31)
      */
     public SnowflakeIdWorker(long workerId, long datacenterId) {
-        if (workerId > maxWorkerId || workerId < 0) {
-            throw new IllegalArgumentException(
-                    String.format("worker Id can't be greater than %d or less than 0",
-                            maxWorkerId));
-        }
-        if (datacenterId > maxDatacenterId || datacenterId < 0) {
-            throw new IllegalArgumentException(
-                    String.format("datacenter Id can't be greater than %d or less than 0",
-                            maxDatacenterId));
-        }
+        this(SnowflakeLayout.DEFAULT, workerId, datacenterId);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param layout       位布局
+     * @param workerId     工作ID (0~layout.maxWorkerId)
+     * @param datacenterId 数据中心ID (0~layout.maxDatacenterId)
+     */
+    public SnowflakeIdWorker(SnowflakeLayout layout, long workerId, long datacenterId) {
+        this.node = layout.node(workerId, datacenterId);
+        this.layout = layout;
+        this.twepoch = layout.getEpoch();
+        this.timestampLeftShift = layout.getTimestampLeftShift();
+        this.sequenceMask = layout.getSequenceMask();
         this.workerId = workerId;
         this.datacenterId = datacenterId;
     }
@@ -136,11 +118,68 @@ public class SnowflakeIdWorker implements Serializable {
 
         //移位并通过或运算拼到一起组成64位的ID
         return ((timestamp - twepoch) << timestampLeftShift) //
-                | (datacenterId << datacenterIdShift) //
-                | (workerId << workerIdShift) //
+                | node //
                 | sequence;
     }
 
+    /**
+     * 获得 n 个ID
+     *
+     * @param n ID 个数
+     * @return SnowflakeId 数组
+     */
+    public long[] nextIds(int n) {
+        long[] ids = new long[n];
+        reserve(ids, 0, n);
+        return ids;
+    }
+
+    /**
+     * 填满 dst，见 {@link #reserve(long[], int, int)}
+     *
+     * @param dst 目标数组
+     */
+    public void reserve(long[] dst) {
+        reserve(dst, 0, dst.length);
+    }
+
+    /**
+     * 在一次加锁内领取 len 个ID 写入 dst[off, off + len)
+     *
+     * @param dst 目标数组
+     * @param off 起始位置
+     * @param len ID 个数
+     */
+    public synchronized void reserve(long[] dst, int off, int len) {
+        if (off < 0 || len < 0 || off + len > dst.length) {
+            throw new IndexOutOfBoundsException(
+                    String.format("off: %d, len: %d, length: %d", off, len, dst.length));
+        }
+        for (int i = off, end = off + len; i < end; i++) {
+            dst[i] = nextId();
+        }
+    }
+
+    /**
+     * @return 位布局，可用于解码生成的ID
+     */
+    public SnowflakeLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * 旧版本序列化的对象没有 layout 和 node，位布局当时固定为默认值，据此重建
+     */
+    private Object readResolve() throws ObjectStreamException {
+        if (layout != null) {
+            return this;
+        }
+        SnowflakeIdWorker worker = new SnowflakeIdWorker(SnowflakeLayout.DEFAULT, workerId, datacenterId);
+        worker.sequence = sequence;
+        worker.lastTimestamp = lastTimestamp;
+        return worker;
+    }
+
     /**
      * 返回以毫秒为单位的当前时间
      *
@@ -0,0 +1,232 @@
+package me.asu.util.seq;
+
+import java.io.Serializable;
+
+/**
+ * Snowflake ID 的位布局: 1 位符号位 + 时间戳 + 数据中心ID + 工作机器ID + 毫秒内序列。
+ * <p>
+ * 移位与掩码在构造时一次算好，生成器把它们复制进自己的 final 字段，
+ * 解码方法只做移位与掩码运算，不分配对象，可直接用在日志关联等热路径上。
+ * <pre>
+ * // 2000 个 pod: 13 位节点 + 10 位序列
+ * SnowflakeLayout layout = SnowflakeLayout.builder().workerIdBits(13).datacenterIdBits(0)
+ *         .sequenceBits(10).build();
+ * LockFreeSnowflakeIdWorker worker = new LockFreeSnowflakeIdWorker(layout, podId, 0);
+ * </pre>
+ */
+public final class SnowflakeLayout implements Serializable {
+
+    private static final long serialVersionUID = -6150479934768212367L;
+
+    /**
+     * 默认开始时间截 (2018-02-16 即黄帝纪年4716大年初一)
+     */
+    public static final long DEFAULT_EPOCH = 1518710400000L;
+
+    /**
+     * {@link SnowflakeIdWorker} 的原始布局: 5 位工作机器ID，5 位数据中心ID，12 位序列
+     */
+    public static final SnowflakeLayout DEFAULT = builder().build();
+
+    private final long epoch;
+    private final int  workerIdBits;
+    private final int  datacenterIdBits;
+    private final int  sequenceBits;
+    private final long maxWorkerId;
+    private final long maxDatacenterId;
+    private final long sequenceMask;
+    private final int  workerIdShift;
+    private final int  datacenterIdShift;
+    private final int  timestampLeftShift;
+
+    private SnowflakeLayout(long epoch, int workerIdBits, int datacenterIdBits,
+            int sequenceBits) {
+        if (workerIdBits < 0 || datacenterIdBits < 0 || sequenceBits < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "invalid layout: workerIdBits=%d, datacenterIdBits=%d, sequenceBits=%d",
+                    workerIdBits, datacenterIdBits, sequenceBits));
+        }
+        // 至少给时间戳留 39 位 (约 17 年)
+        if (workerIdBits + datacenterIdBits + sequenceBits > 24) {
+            throw new IllegalArgumentException(String.format(
+                    "workerIdBits + datacenterIdBits + sequenceBits can't be greater than 24, "
+                            + "got %d", workerIdBits + datacenterIdBits + sequenceBits));
+        }
+        this.epoch = epoch;
+        this.workerIdBits = workerIdBits;
+        this.datacenterIdBits = datacenterIdBits;
+        this.sequenceBits = sequenceBits;
+        this.maxWorkerId = -1L ^ (-1L << workerIdBits);
+        this.maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
+        this.sequenceMask = -1L ^ (-1L << sequenceBits);
+        this.workerIdShift = sequenceBits;
+        this.datacenterIdShift = sequenceBits + workerIdBits;
+        this.timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 校验ID并返回移位后的节点部分，生成ID时直接或上去
+     *
+     * @param workerId     工作ID
+     * @param datacenterId 数据中心ID
+     * @return 节点部分
+     */
+    long node(long workerId, long datacenterId) {
+        if (workerId > maxWorkerId || workerId < 0) {
+            throw new IllegalArgumentException(
+                    String.format("worker Id can't be greater than %d or less than 0",
+                            maxWorkerId));
+        }
+        if (datacenterId > maxDatacenterId || datacenterId < 0) {
+            throw new IllegalArgumentException(
+                    String.format("datacenter Id can't be greater than %d or less than 0",
+                            maxDatacenterId));
+        }
+        return (datacenterId << datacenterIdShift) | (workerId << workerIdShift);
+    }
+
+    // ==============================Decode===========================================
+
+    /**
+     * @param id SnowflakeId
+     * @return 生成ID时的时间戳(毫秒)
+     */
+    public long timestampOf(long id) {
+        return (id >>> timestampLeftShift) + epoch;
+    }
+
+    /**
+     * @param id SnowflakeId
+     * @return 数据中心ID
+     */
+    public long datacenterIdOf(long id) {
+        return (id >>> datacenterIdShift) & maxDatacenterId;
+    }
+
+    /**
+     * @param id SnowflakeId
+     * @return 工作机器ID
+     */
+    public long workerIdOf(long id) {
+        return (id >>> workerIdShift) & maxWorkerId;
+    }
+
+    /**
+     * @param id SnowflakeId
+     * @return 节点 = 数据中心ID << workerIdBits | 工作机器ID
+     */
+    public long nodeOf(long id) {
+        return (id >>> workerIdShift) & (-1L ^ (-1L << (workerIdBits + datacenterIdBits)));
+    }
+
+    /**
+     * @param id SnowflakeId
+     * @return 毫秒内序列
+     */
+    public long sequenceOf(long id) {
+        return id & sequenceMask;
+    }
+
+    /**
+     * 把ID拆开写入 out: [时间戳, 数据中心ID, 工作机器ID, 序列]
+     *
+     * @param id  SnowflakeId
+     * @param out 长度至少为 4 的数组，可重复使用
+     * @return out
+     */
+    public long[] decode(long id, long[] out) {
+        out[0] = timestampOf(id);
+        out[1] = datacenterIdOf(id);
+        out[2] = workerIdOf(id);
+        out[3] = sequenceOf(id);
+        return out;
+    }
+
+    // ==============================Getters==========================================
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getWorkerIdBits() {
+        return workerIdBits;
+    }
+
+    public int getDatacenterIdBits() {
+        return datacenterIdBits;
+    }
+
+    public int getSequenceBits() {
+        return sequenceBits;
+    }
+
+    public long getMaxWorkerId() {
+        return maxWorkerId;
+    }
+
+    public long getMaxDatacenterId() {
+        return maxDatacenterId;
+    }
+
+    public long getSequenceMask() {
+        return sequenceMask;
+    }
+
+    public int getWorkerIdShift() {
+        return workerIdShift;
+    }
+
+    public int getDatacenterIdShift() {
+        return datacenterIdShift;
+    }
+
+    public int getTimestampLeftShift() {
+        return timestampLeftShift;
+    }
+
+    @Override
+    public String toString() {
+        return "SnowflakeLayout{epoch=" + epoch + ", workerIdBits=" + workerIdBits
+                + ", datacenterIdBits=" + datacenterIdBits + ", sequenceBits=" + sequenceBits
+                + '}';
+    }
+
+    public static final class Builder {
+
+        private long epoch            = DEFAULT_EPOCH;
+        private int  workerIdBits     = 5;
+        private int  datacenterIdBits = 5;
+        private int  sequenceBits     = 12;
+
+        private Builder() {
+        }
+
+        public Builder epoch(long epoch) {
+            this.epoch = epoch;
+            return this;
+        }
+
+        public Builder workerIdBits(int workerIdBits) {
+            this.workerIdBits = workerIdBits;
+            return this;
+        }
+
+        public Builder datacenterIdBits(int datacenterIdBits) {
+            this.datacenterIdBits = datacenterIdBits;
+            return this;
+        }
+
+        public Builder sequenceBits(int sequenceBits) {
+            this.sequenceBits = sequenceBits;
+            return this;
+        }
+
+        public SnowflakeLayout build() {
+            return new SnowflakeLayout(epoch, workerIdBits, datacenterIdBits, sequenceBits);
+        }
+    }
+}
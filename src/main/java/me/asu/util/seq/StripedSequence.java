@@ -0,0 +1,153 @@
+package me.asu.util.seq;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 分段的 {@link Sequence}。
+ * <p>
+ * 每个线程从共享计数器一次领取 chunk 个号码，在本线程内依次发放，用完再领取下一段，
+ * 共享计数器只在领取时被访问一次，不再每次 next() 都争用同一条缓存行。
+ * 号码全局唯一，但不同线程之间不保证递增；线程结束时未发放的号码会被跳过。
+ * <p>
+ * 持久化模式下，每次领取新的一段前先把高水位 (已领取的最大号码) 写入内存映射文件并 force 到磁盘，
+ * 重启后从高水位之后继续发放，不会重复。
+ */
+public class StripedSequence extends Sequence implements Closeable {
+
+    /**
+     * 默认每次领取的号码个数
+     */
+    public static final int DEFAULT_CHUNK = 1024;
+
+    private final int chunk;
+
+    /**
+     * 每个线程的号码段: [上次发放的号码, 段内最大号码]
+     */
+    private final ThreadLocal<long[]> ranges = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer checkpoint;
+
+    /**
+     * 已写入检查点文件的高水位
+     */
+    private long checkpointed;
+
+    public StripedSequence() {
+        this(DEFAULT_CHUNK);
+    }
+
+    public StripedSequence(int chunk) {
+        super();
+        this.chunk = checkChunk(chunk);
+        this.raf = null;
+        this.checkpoint = null;
+    }
+
+    public StripedSequence(long initial, int chunk) {
+        super(initial);
+        this.chunk = checkChunk(chunk);
+        this.raf = null;
+        this.checkpoint = null;
+    }
+
+    /**
+     * 持久化模式，检查点文件不存在时从 initial 开始
+     *
+     * @param file    检查点文件
+     * @param initial 初始值，第一个号码为 initial + 1
+     * @param chunk   每次领取的号码个数
+     * @throws IOException 无法打开或映射检查点文件
+     */
+    public StripedSequence(File file, long initial, int chunk) throws IOException {
+        this(initial, chunk, new RandomAccessFile(file, "rw"));
+    }
+
+    private StripedSequence(long initial, int chunk, RandomAccessFile raf)
+            throws IOException {
+        super(initial);
+        this.chunk = checkChunk(chunk);
+        this.raf = raf;
+        try {
+            boolean exists = raf.length() >= 8;
+            this.checkpoint = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 8);
+            if (exists) {
+                long stored = checkpoint.getLong(0);
+                if (stored > seq.get()) {
+                    seq.set(stored);
+                }
+            }
+            this.checkpointed = seq.get();
+            checkpoint.putLong(0, checkpointed);
+            checkpoint.force();
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        } catch (RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    private static int checkChunk(int chunk) {
+        if (chunk < 1) {
+            throw new IllegalArgumentException("chunk must > 0!");
+        }
+        return chunk;
+    }
+
+    @Override
+    public long next() {
+        long[] range = ranges.get();
+        if (range[0] == range[1]) {
+            refill(range);
+        }
+        return ++range[0];
+    }
+
+    private void refill(long[] range) {
+        long start = seq.getAndAdd(chunk);
+        if (checkpoint != null) {
+            checkpoint(start + chunk);
+        }
+        range[0] = start;
+        range[1] = start + chunk;
+    }
+
+    /**
+     * 高水位必须在本段号码发放之前落盘。
+     * 并发领取时，后领取的段可能先写入，所以只在更大时写入。
+     */
+    private synchronized void checkpoint(long high) {
+        if (high > checkpointed) {
+            checkpoint.putLong(0, high);
+            checkpoint.force();
+            checkpointed = high;
+        }
+    }
+
+    /**
+     * @return 是否为持久化模式
+     */
+    public boolean isDurable() {
+        return checkpoint != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (raf != null) {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package me.asu.lang.Linked;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/**
+ * 多生产者并发追加，同时有读者不断检查已发布的前缀
+ */
+public class ConcurrentLinkedLongArrayTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int PER_PRODUCER = 200000;
+    private static final int BATCH = 37;
+
+    /**
+     * 元素编码为 (生产者 + 1) << 32 | 序号，不会是 0，读到 0 说明读到了没写完的槽位
+     */
+    private static long value(int producer, int seq) {
+        return ((long) (producer + 1) << 32) | seq;
+    }
+
+    @Test
+    public void testConcurrentAppend() throws Exception {
+        final ConcurrentLinkedLongArray array = new ConcurrentLinkedLongArray(100);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            producers[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        long[] batch = new long[BATCH];
+                        int seq = 0;
+                        while (seq < PER_PRODUCER) {
+                            if (producer % 2 == 0) {
+                                array.push(value(producer, seq++));
+                            } else {
+                                int n = Math.min(BATCH, PER_PRODUCER - seq);
+                                for (int i = 0; i < n; i++) {
+                                    batch[i] = value(producer, seq++);
+                                }
+                                array.addAll(batch, 0, n);
+                            }
+                        }
+                    } catch (Throwable t) {
+                        error.compareAndSet(null, t);
+                    }
+                }
+            });
+            producers[p].start();
+        }
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long last = 0;
+                    while (!done.get()) {
+                        long size = array.size();
+                        if (size < last) {
+                            throw new AssertionError("size went backwards: " + last + " -> " + size);
+                        }
+                        for (long i = last; i < size; i++) {
+                            if (array.get(i) == 0) {
+                                throw new AssertionError("unwritten slot visible: " + i);
+                            }
+                        }
+                        last = size;
+                    }
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            }
+        });
+        reader.start();
+
+        start.countDown();
+        for (Thread t : producers) {
+            t.join();
+        }
+        done.set(true);
+        reader.join();
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+
+        long[] all = array.toArray();
+        assertEquals((long) PRODUCERS * PER_PRODUCER, all.length);
+        assertEquals(all.length, array.size());
+        // 每个生产者的元素各出现一次，并且保持它自己的追加顺序
+        int[] next = new int[PRODUCERS];
+        for (long v : all) {
+            int producer = (int) (v >>> 32) - 1;
+            assertTrue("bad value: " + v, producer >= 0 && producer < PRODUCERS);
+            assertEquals(next[producer]++, (int) v);
+        }
+        for (int p = 0; p < PRODUCERS; p++) {
+            assertEquals(PER_PRODUCER, next[p]);
+        }
+    }
+
+    @Test
+    public void testChunkVisitorSeesPublishedPrefix() {
+        ConcurrentLinkedLongArray array = new ConcurrentLinkedLongArray(4);
+        for (int i = 1; i <= 10; i++) {
+            array.push(i);
+        }
+        array.addAll(11, 12, 13);
+        final long[] sum = new long[1];
+        array.forEachChunk(new LinkedLongArray.ChunkVisitor() {
+            @Override
+            public boolean visit(long[] chunk, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    sum[0] += chunk[i];
+                }
+                return true;
+            }
+        });
+        assertEquals(13 * 14 / 2, sum[0]);
+        assertEquals(13, array.get(12));
+        try {
+            array.get(13);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+}